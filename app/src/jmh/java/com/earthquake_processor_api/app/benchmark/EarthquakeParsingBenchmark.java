@@ -0,0 +1,67 @@
+package com.earthquake_processor_api.app.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.EarthquakeRequest;
+import com.earthquake_processor_api.app.service.EarthquakeService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Parsing of USGS GeoJSON responses into EarthquakeEvent entities, for responses of 100, 10k and
+ * 100k features. parse covers reading the body into a tree plus mapping, map only the mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EarthquakeParsingBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    int features;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // parsing only touches the mapper, the collaborators are never called
+    private final EarthquakeService earthquakeService = new EarthquakeService(null, null, null, null, new SimpleMeterRegistry());
+
+    private final EarthquakeRequest request = EarthquakeRequest.builder().build();
+
+    private byte[] payload;
+    private JsonNode tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        payload = UsgsPayloads.featureCollection(features);
+        tree = mapper.readTree(payload);
+    }
+
+    @Benchmark
+    public List<EarthquakeEvent> parse() throws Exception {
+        return earthquakeService.parseMultipleEarthquakeEvents(mapper.readTree(payload), request);
+    }
+
+    @Benchmark
+    public List<EarthquakeEvent> map() throws Exception {
+        return earthquakeService.parseMultipleEarthquakeEvents(tree, request);
+    }
+}
@@ -0,0 +1,83 @@
+package com.earthquake_processor_api.app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+
+import com.earthquake_processor_api.app.service.EarthquakeService;
+import com.earthquake_processor_api.app.service.ReverseGeocodingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per event enrichment done by the batch processor: reverse geocoding, the place parsing it falls
+ * back to, and the significance rules.
+ * Each invocation runs over all recorded place strings, so the branches for the different
+ * USGS place formats are all exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnrichmentBenchmark {
+
+    private final EarthquakeService earthquakeService = new EarthquakeService(null, null, null, null, new SimpleMeterRegistry());
+
+    private final ReverseGeocodingService reverseGeocodingService =
+            new ReverseGeocodingService(new ClassPathResource("geonames/cities.tsv"), 0);
+
+    private String[] places;
+    private double[][] coordinates;
+
+    @Setup
+    public void setUp() {
+        places = UsgsPayloads.places();
+        coordinates = UsgsPayloads.coordinates();
+        reverseGeocodingService.load();
+    }
+
+    @Benchmark
+    public void extractNearestCity(Blackhole blackhole) {
+        for (String place : places) {
+            blackhole.consume(earthquakeService.extractNearestCity(place));
+        }
+    }
+
+    @Benchmark
+    public void extractDistanceToNearestCityKm(Blackhole blackhole) {
+        for (String place : places) {
+            blackhole.consume(earthquakeService.extractDistanceToNearestCityKm(place));
+        }
+    }
+
+    @Benchmark
+    public void reverseGeocodeNearestCity(Blackhole blackhole) {
+        for (double[] coordinate : coordinates) {
+            blackhole.consume(reverseGeocodingService.nearestCity(coordinate[0], coordinate[1]));
+        }
+    }
+
+    @Benchmark
+    public void isSignificantEarthquake(Blackhole blackhole) {
+        // one case per rule, plus a quake that matches none
+        blackhole.consume(earthquakeService.isSignificantEarthquake(6.4, false, null, 10_000.0, 80.0));
+        blackhole.consume(earthquakeService.isSignificantEarthquake(5.2, false, null, 10_000.0, 20.0));
+        blackhole.consume(earthquakeService.isSignificantEarthquake(4.3, false, null, 2_000_000.0, 8.0));
+        blackhole.consume(earthquakeService.isSignificantEarthquake(3.1, true, null, null, null));
+        blackhole.consume(earthquakeService.isSignificantEarthquake(4.8, false, "orange", 50_000.0, 60.0));
+        blackhole.consume(earthquakeService.isSignificantEarthquake(2.2, false, null, 5_000.0, 16.0));
+    }
+}
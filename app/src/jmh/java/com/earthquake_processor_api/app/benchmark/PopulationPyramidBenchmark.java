@@ -0,0 +1,63 @@
+package com.earthquake_processor_api.app.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.earthquake_processor_api.app.service.PopulationService;
+
+/**
+ * Demographics calculated from a WorldPop age/sex pyramid, run once per enriched earthquake
+ * that misses the population cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulationPyramidBenchmark {
+
+    // the calculations never call WorldPop or the cache
+    private final PopulationService populationService = new PopulationService(null, null, null);
+
+    private List<Map<String, Object>> pyramid;
+
+    @Setup
+    public void setUp() {
+        // same shape as WorldPop agesexpyramid: 5 year bands up to "80 to 84", then "85 and over"
+        pyramid = new ArrayList<>();
+        for (int start = 0; start < 85; start += 5) {
+            pyramid.add(Map.of("class", start / 5, "age", start + " to " + (start + 4),
+                    "male", 152_340.5 - start * 1_200, "female", 149_870.25 - start * 1_050));
+        }
+        pyramid.add(Map.of("class", 17, "age", "85 and over", "male", 21_480.0, "female", 35_902.75));
+    }
+
+    @Benchmark
+    public double calculateAverageAge() {
+        return populationService.calculateAverageAge(pyramid);
+    }
+
+    @Benchmark
+    public double calculateTotalPopulation() {
+        return populationService.calculateTotalPopulation(pyramid);
+    }
+
+    @Benchmark
+    public Map<String, Double> calculateGenderPercentages() {
+        return populationService.calculateGenderPercentages(pyramid);
+    }
+}
@@ -0,0 +1,89 @@
+package com.earthquake_processor_api.app.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Benchmark inputs built from a recorded USGS query response. Larger payloads repeat the recorded
+ * features with unique ids, so they keep the field mix and value shapes of the real feed.
+ */
+final class UsgsPayloads {
+
+    private static final String RECORDED_FEATURES = "/usgs/recorded_features.geojson";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private UsgsPayloads() {
+    }
+
+    /**
+     * Recorded features, as returned by USGS
+     * @return feature nodes
+     */
+    static List<JsonNode> recordedFeatures() {
+        try (InputStream in = UsgsPayloads.class.getResourceAsStream(RECORDED_FEATURES)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark resource " + RECORDED_FEATURES);
+            }
+            List<JsonNode> features = new ArrayList<>();
+            MAPPER.readTree(in).path("features").forEach(features::add);
+            return features;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serialized FeatureCollection with the given number of features
+     * @param featureCount number of features
+     * @return GeoJSON bytes
+     */
+    static byte[] featureCollection(int featureCount) {
+        List<JsonNode> recorded = recordedFeatures();
+
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("type", "FeatureCollection");
+        root.putObject("metadata").put("count", featureCount).put("status", 200);
+        ArrayNode features = root.putArray("features");
+        for (int i = 0; i < featureCount; i++) {
+            ObjectNode feature = (ObjectNode) recorded.get(i % recorded.size()).deepCopy();
+            feature.put("id", feature.path("id").asText() + "-" + i);
+            features.add(feature);
+        }
+
+        try {
+            return MAPPER.writeValueAsBytes(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Place strings of the recorded features
+     * @return place strings
+     */
+    static String[] places() {
+        return recordedFeatures().stream()
+                .map(feature -> feature.path("properties").path("place").asText())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Latitude/longitude pairs of the recorded features
+     * @return coordinates
+     */
+    static double[][] coordinates() {
+        return recordedFeatures().stream()
+                .map(feature -> feature.path("geometry").path("coordinates"))
+                .map(coordinates -> new double[] { coordinates.get(1).asDouble(), coordinates.get(0).asDouble() })
+                .toArray(double[][]::new);
+    }
+}
@@ -0,0 +1,40 @@
+package com.earthquake_processor_api.app.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.stereotype.Component;
+
+import com.earthquake_processor_api.app.repository.EarthquakeRequestRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Claims the staging requests that finished staging before the run started. Requests still
+ * staging, or staged while the job runs, are left for the next run.
+ */
+@Component
+@Slf4j
+public class ClaimStagingBatchesTasklet implements Tasklet {
+
+    private final EarthquakeRequestRepository earthquakeRequestRepository;
+
+    public ClaimStagingBatchesTasklet(EarthquakeRequestRepository earthquakeRequestRepository) {
+        this.earthquakeRequestRepository = earthquakeRequestRepository;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        List<Long> requestIds = new ArrayList<>(earthquakeRequestRepository.findStagedUnprocessedIds());
+
+        chunkContext.getStepContext().getStepExecution().getJobExecution()
+                .getExecutionContext().put(StagingBatches.KEY, requestIds);
+
+        log.info("Claimed " + requestIds.size() + " staging batches");
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -0,0 +1,68 @@
+package com.earthquake_processor_api.app.batch;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.earthquake_processor_api.app.repository.EarthquakeEventPartitions;
+import com.earthquake_processor_api.app.repository.EarthquakeRequestRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drops the partitions of the staging batches processed by this run, instead of truncating the
+ * whole staging table, so events staged while the job ran are kept for the next run. Partitions
+ * of requests that never finished staging are dropped once they are older than abandon-after;
+ * their events are fetched again by the next incremental run since the watermark did not move.
+ */
+@Component
+@Slf4j
+public class DropStagingPartitionsTasklet implements Tasklet {
+
+    private final EarthquakeEventPartitions partitions;
+
+    private final EarthquakeRequestRepository earthquakeRequestRepository;
+
+    private final Duration abandonAfter;
+
+    public DropStagingPartitionsTasklet(EarthquakeEventPartitions partitions,
+                                        EarthquakeRequestRepository earthquakeRequestRepository,
+                                        @Value("${earthquake.staging.abandon-after:6h}") Duration abandonAfter) {
+        this.partitions = partitions;
+        this.earthquakeRequestRepository = earthquakeRequestRepository;
+        this.abandonAfter = abandonAfter;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        List<Long> processed = StagingBatches.from(chunkContext.getStepContext().getJobExecutionContext());
+        List<Long> abandoned = earthquakeRequestRepository.findAbandonedIds(
+                Timestamp.from(Instant.now().minus(abandonAfter)));
+
+        List<Long> requestIds = new ArrayList<>(processed);
+        requestIds.addAll(abandoned);
+        if (requestIds.isEmpty()) {
+            return RepeatStatus.FINISHED;
+        }
+
+        // partitions are detached outside the step transaction; dropping one twice is a no-op, so a
+        // failed step leaves the requests unmarked and the next run drops whatever is left
+        for (long requestId : requestIds) {
+            partitions.drop(requestId);
+        }
+        earthquakeRequestRepository.markProcessed(requestIds, new Timestamp(System.currentTimeMillis()));
+
+        log.info("Dropped staging partitions of " + processed.size() + " processed and "
+                + abandoned.size() + " abandoned batches");
+        return RepeatStatus.FINISHED;
+    }
+}
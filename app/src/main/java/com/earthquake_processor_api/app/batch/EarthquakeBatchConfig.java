@@ -1,86 +1,251 @@
 package com.earthquake_processor_api.app.batch;
 
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
 import org.springframework.batch.item.database.JpaItemWriter;
-import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 
-import com.earthquake_processor_api.app.entity.EarthquakeEvent;
-import com.earthquake_processor_api.app.entity.PopulationDemographics;
+import com.earthquake_processor_api.app.entity.EarthquakeEventRow;
 import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
-import com.earthquake_processor_api.app.service.EarthquakeService;
-import com.earthquake_processor_api.app.service.PopulationService;
+import com.earthquake_processor_api.app.service.EarthquakeEnrichmentService;
+import com.earthquake_processor_api.app.service.SignificantEarthquakeBroadcaster;
+import com.earthquake_processor_api.app.util.PgCopyUtils;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+import javax.sql.DataSource;
 
 @Configuration
+@Slf4j
 public class EarthquakeBatchConfig {
 
-    private final EarthquakeService earthquakeService;
+    private final EarthquakeEnrichmentService earthquakeEnrichmentService;
+
+    private final SignificantEarthquakeBroadcaster significantEarthquakeBroadcaster;
+
+    private final DataSource dataSource;
 
-    private final PopulationService populationService;
+    private final String writerType;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int readerFetchSize;
+
+    EarthquakeBatchConfig(EarthquakeEnrichmentService earthquakeEnrichmentService,
+                          SignificantEarthquakeBroadcaster significantEarthquakeBroadcaster,
+                          DataSource dataSource,
+                          MeterRegistry meterRegistry,
+                          @Value("${earthquake.batch.writer:jpa}") String writerType,
+                          @Value("${earthquake.batch.reader.fetch-size:500}") int readerFetchSize) {
+        this.earthquakeEnrichmentService = earthquakeEnrichmentService;
+        this.significantEarthquakeBroadcaster = significantEarthquakeBroadcaster;
+        this.dataSource = dataSource;
+        this.writerType = writerType;
+        this.meterRegistry = meterRegistry;
+        this.readerFetchSize = readerFetchSize;
+    }
 
-    EarthquakeBatchConfig(PopulationService populationService, EarthquakeService earthquakeService) {
-        this.populationService = populationService;
-        this.earthquakeService = earthquakeService;
+    /**
+     * Reader over the events of the claimed staging batches, in id order through a single server
+     * side cursor. Only the columns enrichment uses are selected, into EarthquakeEventRow records.
+     * @param requestIds staging batches claimed by the run, null for every staged event
+     * @return step scoped cursor reader
+     */
+    @Bean
+    @StepScope
+    public JdbcCursorItemReader<EarthquakeEventRow> earthquakeEventReader(
+            @Value("#{jobExecutionContext['" + StagingBatches.KEY + "']}") List<Long> requestIds) {
+        return cursorReader("earthquakeEventReader",
+                "SELECT " + EarthquakeEventRow.COLUMNS + " FROM earthquake_events WHERE "
+                        + StagingBatches.condition(requestIds) + " ORDER BY id")
+            .build();
     }
 
+    /**
+     * Reader for one partition of earthquakeWorkerStep, limited to the id range
+     * assigned by EarthquakeEventIdRangePartitioner
+     * @param requestIds staging batches claimed by the run, null for every staged event
+     * @param minId first id of the partition
+     * @param maxId last id of the partition
+     * @return step scoped cursor reader
+     */
     @Bean
-    public ItemReader<EarthquakeEvent> earthquakeEventReader(EntityManagerFactory entityManagerFactory) {
-        return new JpaPagingItemReaderBuilder<EarthquakeEvent>()
-            .name("earthquakeEventReader")
-            .entityManagerFactory(entityManagerFactory)
-            .queryString("SELECT e FROM EarthquakeEvent e")
-            .pageSize(50)
+    @StepScope
+    public JdbcCursorItemReader<EarthquakeEventRow> earthquakeEventPartitionReader(
+            @Value("#{jobExecutionContext['" + StagingBatches.KEY + "']}") List<Long> requestIds,
+            @Value("#{stepExecutionContext['minId']}") Long minId,
+            @Value("#{stepExecutionContext['maxId']}") Long maxId) {
+        return cursorReader("earthquakeEventPartitionReader",
+                "SELECT " + EarthquakeEventRow.COLUMNS + " FROM earthquake_events WHERE id BETWEEN ? AND ? AND "
+                        + StagingBatches.condition(requestIds) + " ORDER BY id")
+            .queryArguments(minId, maxId)
             .build();
     }
 
+    private JdbcCursorItemReaderBuilder<EarthquakeEventRow> cursorReader(String name, String sql) {
+        return new JdbcCursorItemReaderBuilder<EarthquakeEventRow>()
+            .name(name)
+            .dataSource(dataSource)
+            .sql(sql)
+            .rowMapper(EarthquakeEventRow::map)
+            // PostgreSQL only streams with a cursor when autocommit is off, otherwise it fetches every row up front
+            .connectionAutoCommit(false)
+            .fetchSize(readerFetchSize);
+    }
+
+    /**
+     * Enriches a staged event with EarthquakeEnrichmentService. Each item is timed as
+     * earthquake.enrichment.item; with async enrichment Spring Batch's own
+     * spring.batch.item.process only sees the hand off to the pool.
+     * @return enrichment processor
+     */
     @Bean
-    public ItemProcessor<EarthquakeEvent, ProcessedEarthquake> earthquakeEventProcessor() {
-        return (EarthquakeEvent item) -> {
-        
-        //extract needed info from raw earthquake event
-        ProcessedEarthquake processed = new ProcessedEarthquake();
-        processed.setEarthquakeGlobalId(item.getEarthquakeGlobalId());
-        processed.setMagnitude(item.getMagnitude());
-        processed.setMagType(item.getMagType());
-        processed.setPlace(item.getPlace());
-        processed.setLatitude(item.getLatitude());
-        processed.setLongitude(item.getLongitude());
-        processed.setDepth(item.getDepth());
-        processed.setEventTime(item.getTime().toLocalDateTime());
-        processed.setTsunami(item.getTsunami());
-        processed.setAlertLevel(item.getAlert());
-
-        //process placement info, to extract nearest city and distance
-        processed.setNearestCity(earthquakeService.extractNearestCity(processed.getPlace()));
-        processed.setDistanceToNearestCityKm(earthquakeService.extractDistanceToNearestCityKm(processed.getPlace()));
-
-        //enrich with population data
-        PopulationDemographics populationDemographics = populationService.fetchPopulation(item.getLatitude(), item.getLongitude(), 100);
-        processed.setPopulation100km(populationDemographics.getTotalPopulation());
-        processed.setAvgAge100km(populationDemographics.getAvgAge());
-        processed.setPercentMale100km(populationDemographics.getPercentMale());
-        processed.setPercentFemale100km(populationDemographics.getPercentFemale());
-
-        //determine if significant 
-        processed.setIsSignificant(earthquakeService.isSignificantEarthquake(processed.getMagnitude(),
-                                                                             processed.getTsunami(),
-                                                                             processed.getAlertLevel(),
-                                                                             processed.getPopulation100km(),
-                                                                             processed.getDistanceToNearestCityKm()));
-        
-        return processed;
+    public ItemProcessor<EarthquakeEventRow, ProcessedEarthquake> earthquakeEventProcessor() {
+        return timedProcessor(earthquakeEnrichmentService::enrich);
+    }
+
+    private ItemProcessor<EarthquakeEventRow, ProcessedEarthquake> timedProcessor(ItemProcessor<EarthquakeEventRow, ProcessedEarthquake> delegate) {
+        return item -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                ProcessedEarthquake processed = delegate.process(item);
+                outcome = processed != null ? "success" : "filtered";
+                return processed;
+            } finally {
+                sample.stop(Timer.builder("earthquake.enrichment.item")
+                        .description("Enrichment of one staged earthquake")
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        };
+    }
+
+    /**
+     * Time each chunk write as earthquake.enrichment.write and count the written items
+     * @param writer writer name
+     * @param delegate writer
+     * @return timed writer
+     */
+    private ItemWriter<ProcessedEarthquake> timedWriter(String writer, ItemWriter<ProcessedEarthquake> delegate) {
+        Counter written = Counter.builder("earthquake.enrichment.written")
+                .description("Processed earthquakes written")
+                .tag("writer", writer)
+                .register(meterRegistry);
+
+        return chunk -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                delegate.write(chunk);
+                outcome = "success";
+                written.increment(chunk.size());
+            } finally {
+                sample.stop(Timer.builder("earthquake.enrichment.write")
+                        .description("Chunk writes of processed earthquakes")
+                        .tag("writer", writer)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
         };
     }
 
+    /**
+     * Writer for processed earthquakes, selected by earthquake.batch.writer:
+     * jpa (default), copy (PostgreSQL COPY) or upsert (PostgreSQL INSERT ... ON CONFLICT,
+     * safe to re-run); copy and upsert fall back to jpa on other databases
+     * @param emf entity manager factory
+     * @return processed earthquake writer
+     */
     @Bean
     public ItemWriter<ProcessedEarthquake> processedEarthquakeWriter(EntityManagerFactory emf) {
+        if ("copy".equalsIgnoreCase(writerType) || "upsert".equalsIgnoreCase(writerType)) {
+            if (PgCopyUtils.isPostgres(dataSource)) {
+                return publishingWriter("copy".equalsIgnoreCase(writerType)
+                        ? timedWriter("copy", new ProcessedEarthquakeCopyWriter(dataSource))
+                        : timedWriter("upsert", new ProcessedEarthquakeUpsertWriter(new JdbcTemplate(dataSource))));
+            }
+            log.warn(writerType + " writer needs PostgreSQL, falling back to the JPA writer");
+        }
+        return publishingWriter(timedWriter("jpa", jpaProcessedEarthquakeWriter(emf)));
+    }
+
+    /**
+     * Push the significant earthquakes of each chunk to SSE subscribers once the chunk commits
+     * @param delegate writer
+     * @return publishing writer
+     */
+    private ItemWriter<ProcessedEarthquake> publishingWriter(ItemWriter<ProcessedEarthquake> delegate) {
+        return chunk -> {
+            delegate.write(chunk);
+            significantEarthquakeBroadcaster.publishAfterCommit(chunk.getItems());
+        };
+    }
+
+    private ItemWriter<ProcessedEarthquake> jpaProcessedEarthquakeWriter(EntityManagerFactory emf) {
         JpaItemWriter<ProcessedEarthquake> writer = new JpaItemWriter<>();
         writer.setEntityManagerFactory(emf);
+        // items are always new, persist lets the inserts be batched without a merge copy
+        writer.setUsePersist(true);
+
+        return chunk -> {
+            writer.write(chunk);
+            // JpaItemWriter flushed the chunk, drop the written entities from the persistence context
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+            if (entityManager != null) {
+                entityManager.clear();
+            }
+        };
+    }
+
+    /**
+     * Runs the enrichment processor on a bounded pool of threads, so the WorldPop
+     * calls for a chunk are in flight at the same time instead of one after another
+     * @param concurrency maximum number of items enriched concurrently
+     * @return async processor wrapping earthquakeEventProcessor
+     */
+    @Bean
+    public AsyncItemProcessor<EarthquakeEventRow, ProcessedEarthquake> asyncEarthquakeEventProcessor(
+            @Value("${earthquake.batch.enrichment.concurrency:8}") int concurrency) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("enrichment-");
+        // submitting thread blocks once the limit is reached, keeping the pool bounded
+        taskExecutor.setConcurrencyLimit(concurrency);
+
+        AsyncItemProcessor<EarthquakeEventRow, ProcessedEarthquake> processor = new AsyncItemProcessor<>();
+        processor.setDelegate(earthquakeEventProcessor());
+        processor.setTaskExecutor(taskExecutor);
+        return processor;
+    }
+
+    /**
+     * Unwraps the futures produced by asyncEarthquakeEventProcessor in chunk order
+     * and hands the results to processedEarthquakeWriter
+     * @param emf entity manager factory
+     * @return async writer wrapping processedEarthquakeWriter
+     */
+    @Bean
+    public AsyncItemWriter<ProcessedEarthquake> asyncProcessedEarthquakeWriter(EntityManagerFactory emf) {
+        AsyncItemWriter<ProcessedEarthquake> writer = new AsyncItemWriter<>();
+        writer.setDelegate(processedEarthquakeWriter(emf));
         return writer;
     }
 
@@ -0,0 +1,60 @@
+package com.earthquake_processor_api.app.batch;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Splits the staged earthquake_events into contiguous id ranges, one per partition.
+ * Each range is stored as minId/maxId in the partition's execution context.
+ * Only the events of the claimed staging batches are considered when their ids are given.
+ */
+public class EarthquakeEventIdRangePartitioner implements Partitioner {
+
+    static final String MIN_ID = "minId";
+    static final String MAX_ID = "maxId";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String where;
+
+    public EarthquakeEventIdRangePartitioner(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, null);
+    }
+
+    public EarthquakeEventIdRangePartitioner(JdbcTemplate jdbcTemplate, List<Long> requestIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.where = requestIds != null ? " WHERE " + StagingBatches.condition(requestIds) : "";
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM earthquake_events" + where, Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM earthquake_events" + where, Long.class);
+
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        if (minId == null || maxId == null) {
+            // nothing staged, a single empty range keeps the step flow unchanged
+            partitions.put("partition0", range(1, 0));
+            return partitions;
+        }
+
+        long rangeSize = Math.max(1, (maxId - minId + gridSize) / gridSize);
+        int partition = 0;
+        for (long start = minId; start <= maxId; start += rangeSize) {
+            long end = Math.min(start + rangeSize - 1, maxId);
+            partitions.put("partition" + partition++, range(start, end));
+        }
+        return partitions;
+    }
+
+    private ExecutionContext range(long minId, long maxId) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(MIN_ID, minId);
+        context.putLong(MAX_ID, maxId);
+        return context;
+    }
+}
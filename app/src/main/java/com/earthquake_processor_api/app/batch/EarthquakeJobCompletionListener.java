@@ -0,0 +1,43 @@
+package com.earthquake_processor_api.app.batch;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.earthquake_processor_api.app.service.EarthquakeSpatialIndex;
+import com.earthquake_processor_api.app.service.ResponseCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Brings the read side up to date once earthquakeJob has written new processed earthquakes
+ */
+@Component
+@Slf4j
+public class EarthquakeJobCompletionListener implements JobExecutionListener {
+
+    private final EarthquakeSpatialIndex earthquakeSpatialIndex;
+
+    private final ResponseCache responseCache;
+
+    public EarthquakeJobCompletionListener(EarthquakeSpatialIndex earthquakeSpatialIndex, ResponseCache responseCache) {
+        this.earthquakeSpatialIndex = earthquakeSpatialIndex;
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
+            try {
+                int refreshed = earthquakeSpatialIndex.refresh();
+                log.info("Spatial index refreshed with " + refreshed + " processed earthquakes");
+            } catch (DataAccessException e) {
+                log.warn("Spatial index refresh failed, it will catch up after the next job run", e);
+            }
+        }
+        // a failed run may still have committed some chunks
+        responseCache.invalidate();
+    }
+}
@@ -2,61 +2,196 @@ package com.earthquake_processor_api.app.batch;
 
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.builder.SimpleJobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.EarthquakeEventRow;
 import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
 
 import jakarta.persistence.EntityManagerFactory;
 
+import java.util.List;
+import java.util.concurrent.Future;
+
 @Configuration
 public class EarthquakeJobConfig {
 
     private final EarthquakeBatchConfig batchConfig;
-    private final TruncateEarthquakeEventTasklet truncateEarthquakeEventTasklet;
+    private final ClaimStagingBatchesTasklet claimStagingBatchesTasklet;
+    private final DropStagingPartitionsTasklet dropStagingPartitionsTasklet;
+    private final EarthquakeJobCompletionListener jobCompletionListener;
+    private final ParquetExportTasklet parquetExportTasklet;
     private final EntityManagerFactory entityManagerFactory;
     private final JobRepository jobRepository;
     private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final boolean asyncEnrichment;
+    private final int enrichmentConcurrency;
+    private final boolean partitioned;
+    private final int partitionGridSize;
+    private final int partitionThreads;
+    private final boolean parquetExport;
 
     public EarthquakeJobConfig(EarthquakeBatchConfig batchConfig,
-                               TruncateEarthquakeEventTasklet truncateEarthquakeEventTasklet,
+                               ClaimStagingBatchesTasklet claimStagingBatchesTasklet,
+                               DropStagingPartitionsTasklet dropStagingPartitionsTasklet,
+                               EarthquakeJobCompletionListener jobCompletionListener,
+                               ParquetExportTasklet parquetExportTasklet,
                                EntityManagerFactory entityManagerFactory,
                                JobRepository jobRepository,
-                               PlatformTransactionManager transactionManager) {
+                               PlatformTransactionManager transactionManager,
+                               JdbcTemplate jdbcTemplate,
+                               @Value("${earthquake.batch.chunk-size:5}") int chunkSize,
+                               @Value("${earthquake.batch.enrichment.async:false}") boolean asyncEnrichment,
+                               @Value("${earthquake.batch.enrichment.concurrency:8}") int enrichmentConcurrency,
+                               @Value("${earthquake.batch.partition.enabled:false}") boolean partitioned,
+                               @Value("${earthquake.batch.partition.grid-size:4}") int partitionGridSize,
+                               @Value("${earthquake.batch.partition.threads:4}") int partitionThreads,
+                               @Value("${earthquake.export.parquet.enabled:false}") boolean parquetExport) {
         this.batchConfig = batchConfig;
-        this.truncateEarthquakeEventTasklet = truncateEarthquakeEventTasklet;
+        this.claimStagingBatchesTasklet = claimStagingBatchesTasklet;
+        this.dropStagingPartitionsTasklet = dropStagingPartitionsTasklet;
+        this.jobCompletionListener = jobCompletionListener;
+        this.parquetExportTasklet = parquetExportTasklet;
         this.entityManagerFactory = entityManagerFactory;
         this.jobRepository = jobRepository;
         this.transactionManager = transactionManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.asyncEnrichment = asyncEnrichment;
+        this.enrichmentConcurrency = enrichmentConcurrency;
+        this.partitioned = partitioned;
+        this.partitionGridSize = partitionGridSize;
+        this.partitionThreads = partitionThreads;
+        this.parquetExport = parquetExport;
     }
 
     @Bean
     public Step earthquakeStep() {
-        return new StepBuilder("earthquakeStep", jobRepository)
-                .<EarthquakeEvent, ProcessedEarthquake>chunk(5, transactionManager)
-                .reader(batchConfig.earthquakeEventReader(entityManagerFactory))
+        return enrichmentStep("earthquakeStep", batchConfig.earthquakeEventReader(null));
+    }
+
+    /**
+     * Worker step run once per partition, reading only its id range
+     * @return worker step
+     */
+    @Bean
+    public Step earthquakeWorkerStep() {
+        return enrichmentStep("earthquakeWorkerStep", batchConfig.earthquakeEventPartitionReader(null, null, null));
+    }
+
+    /**
+     * Id range partitioner over the events of the claimed staging batches
+     * @param requestIds staging batches claimed by the run
+     * @return step scoped partitioner
+     */
+    @Bean
+    @StepScope
+    public EarthquakeEventIdRangePartitioner earthquakeEventPartitioner(
+            @Value("#{jobExecutionContext['" + StagingBatches.KEY + "']}") List<Long> requestIds) {
+        return new EarthquakeEventIdRangePartitioner(jdbcTemplate, requestIds);
+    }
+
+    /**
+     * Manager step that splits earthquake_events into grid-size id ranges and runs
+     * earthquakeWorkerStep for each on up to partition.threads threads. Every partition
+     * has its own step execution, so a restart only reruns the unfinished ranges.
+     * @return partitioned step
+     */
+    @Bean
+    public Step earthquakePartitionedStep() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("partition-");
+        taskExecutor.setConcurrencyLimit(partitionThreads);
+
+        return new StepBuilder("earthquakePartitionedStep", jobRepository)
+                .partitioner("earthquakeWorkerStep", earthquakeEventPartitioner(null))
+                .step(earthquakeWorkerStep())
+                .gridSize(partitionGridSize)
+                .taskExecutor(taskExecutor)
+                .build();
+    }
+
+    private Step enrichmentStep(String name, ItemReader<EarthquakeEventRow> reader) {
+        StepBuilder stepBuilder = new StepBuilder(name, jobRepository);
+
+        if (asyncEnrichment) {
+            // items of a chunk are enriched concurrently, the writer keeps them in read order
+            return stepBuilder
+                    .<EarthquakeEventRow, Future<ProcessedEarthquake>>chunk(chunkSize, transactionManager)
+                    .reader(reader)
+                    .processor(batchConfig.asyncEarthquakeEventProcessor(enrichmentConcurrency))
+                    .writer(batchConfig.asyncProcessedEarthquakeWriter(entityManagerFactory))
+                    .build();
+        }
+
+        return stepBuilder
+                .<EarthquakeEventRow, ProcessedEarthquake>chunk(chunkSize, transactionManager)
+                .reader(reader)
                 .processor(batchConfig.earthquakeEventProcessor())
                 .writer(batchConfig.processedEarthquakeWriter(entityManagerFactory))
                 .build();
     }
 
+    /**
+     * Claims the staging batches that finished staging before the run
+     * @return claim step
+     */
+    @Bean
+    public Step claimStagingBatchesStep() {
+        return new StepBuilder("claimStagingBatchesStep", jobRepository)
+                .tasklet(claimStagingBatchesTasklet, transactionManager)
+                .build();
+    }
+
+    /**
+     * Drops the staging partitions of the batches this run processed
+     * @return cleanup step
+     */
     @Bean
-    public Step truncateEarthquakeEventStep() {
-        return new StepBuilder("truncateEarthquakeEventStep", jobRepository)
-                .tasklet(truncateEarthquakeEventTasklet, transactionManager)
+    public Step dropStagingPartitionsStep() {
+        return new StepBuilder("dropStagingPartitionsStep", jobRepository)
+                .tasklet(dropStagingPartitionsTasklet, transactionManager)
+                .build();
+    }
+
+    /**
+     * Rewrites the Parquet export of processed_earthquakes for Databricks. The tasklet runs without
+     * a step transaction, the export reads through its own read-only one instead of holding the
+     * step's open for the whole export.
+     * @return parquet export step
+     */
+    @Bean
+    public Step parquetExportStep() {
+        return new StepBuilder("parquetExportStep", jobRepository)
+                .tasklet(parquetExportTasklet, new ResourcelessTransactionManager())
                 .build();
     }
 
     @Bean
     public Job earthquakeJob() {
-        return new JobBuilder("earthquakeJob", jobRepository)
-                .start(earthquakeStep())
-                .next(truncateEarthquakeEventStep())
+        SimpleJobBuilder jobBuilder = new JobBuilder("earthquakeJob", jobRepository)
+                .start(claimStagingBatchesStep())
+                .next(partitioned ? earthquakePartitionedStep() : earthquakeStep());
+
+        if (parquetExport) {
+            jobBuilder.next(parquetExportStep());
+        }
+
+        return jobBuilder
+                .next(dropStagingPartitionsStep())
+                .listener(jobCompletionListener)
                 .build();
     }
 }
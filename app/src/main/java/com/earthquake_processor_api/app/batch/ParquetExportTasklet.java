@@ -0,0 +1,31 @@
+package com.earthquake_processor_api.app.batch;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.stereotype.Component;
+
+import com.earthquake_processor_api.app.entity.ParquetExportSummary;
+import com.earthquake_processor_api.app.service.ParquetExportService;
+
+@Component
+public class ParquetExportTasklet implements Tasklet {
+
+    private final ParquetExportService parquetExportService;
+
+    public ParquetExportTasklet(ParquetExportService parquetExportService) {
+        this.parquetExportService = parquetExportService;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ParquetExportSummary summary = parquetExportService.export();
+
+        contribution.incrementWriteCount(summary.getRows());
+        chunkContext.getStepContext().getStepExecution().getExecutionContext()
+                .putInt("parquetPartitions", summary.getPartitions());
+
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -0,0 +1,61 @@
+package com.earthquake_processor_api.app.batch;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.util.PgCopyUtils;
+
+/**
+ * Writes each chunk into processed_earthquakes with a single PostgreSQL COPY, bypassing the
+ * JPA persistence context. The COPY runs on the chunk transaction's connection, so a failed
+ * chunk still rolls back as a whole.
+ */
+public class ProcessedEarthquakeCopyWriter implements ItemWriter<ProcessedEarthquake> {
+
+    static final String COPY_SQL = "COPY processed_earthquakes (earthquake_global_id, magnitude, mag_type, place, "
+            + "event_time, latitude, longitude, depth, tsunami, alert_level, is_significant, nearest_city, "
+            + "distance_to_nearest_city_km, population_100km, avg_age_100km, percent_male_100km, "
+            + "percent_female_100km, processed_at, source_updated) FROM STDIN WITH (FORMAT csv)";
+
+    private final DataSource dataSource;
+
+    public ProcessedEarthquakeCopyWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void write(Chunk<? extends ProcessedEarthquake> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        StringBuilder csv = new StringBuilder(chunk.size() * 256);
+        for (ProcessedEarthquake item : chunk) {
+            PgCopyUtils.appendRow(csv,
+                    item.getEarthquakeGlobalId(),
+                    item.getMagnitude(),
+                    item.getMagType(),
+                    item.getPlace(),
+                    item.getEventTime(),
+                    item.getLatitude(),
+                    item.getLongitude(),
+                    item.getDepth(),
+                    item.getTsunami(),
+                    item.getAlertLevel(),
+                    item.getIsSignificant(),
+                    item.getNearestCity(),
+                    item.getDistanceToNearestCityKm(),
+                    item.getPopulation100km(),
+                    item.getAvgAge100km(),
+                    item.getPercentMale100km(),
+                    item.getPercentFemale100km(),
+                    item.getProcessedAt(),
+                    item.getSourceUpdated());
+        }
+
+        PgCopyUtils.copyIn(dataSource, COPY_SQL, csv);
+    }
+}
@@ -0,0 +1,115 @@
+package com.earthquake_processor_api.app.batch;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+
+/**
+ * Writes each chunk into processed_earthquakes with a batched PostgreSQL upsert keyed on
+ * earthquake_global_id. An existing row is only overwritten when the incoming event has a newer
+ * source updated timestamp, so re-running the job or processing overlapping windows is a no-op
+ * for events that did not change. The one exception is a row of the same version whose population
+ * lookup failed (population_100km is null), which is repaired once a lookup succeeds.
+ */
+public class ProcessedEarthquakeUpsertWriter implements ItemWriter<ProcessedEarthquake> {
+
+    static final String UPSERT_SQL = "INSERT INTO processed_earthquakes (earthquake_global_id, magnitude, mag_type, "
+            + "place, event_time, latitude, longitude, depth, tsunami, alert_level, is_significant, nearest_city, "
+            + "distance_to_nearest_city_km, population_100km, avg_age_100km, percent_male_100km, "
+            + "percent_female_100km, processed_at, source_updated) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (earthquake_global_id) DO UPDATE SET "
+            + "magnitude = EXCLUDED.magnitude, mag_type = EXCLUDED.mag_type, place = EXCLUDED.place, "
+            + "event_time = EXCLUDED.event_time, latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude, "
+            + "depth = EXCLUDED.depth, tsunami = EXCLUDED.tsunami, alert_level = EXCLUDED.alert_level, "
+            + "is_significant = EXCLUDED.is_significant, nearest_city = EXCLUDED.nearest_city, "
+            + "distance_to_nearest_city_km = EXCLUDED.distance_to_nearest_city_km, "
+            + "population_100km = EXCLUDED.population_100km, avg_age_100km = EXCLUDED.avg_age_100km, "
+            + "percent_male_100km = EXCLUDED.percent_male_100km, percent_female_100km = EXCLUDED.percent_female_100km, "
+            + "processed_at = EXCLUDED.processed_at, source_updated = EXCLUDED.source_updated "
+            + "WHERE processed_earthquakes.source_updated IS NULL "
+            + "OR processed_earthquakes.source_updated < EXCLUDED.source_updated "
+            + "OR (processed_earthquakes.source_updated = EXCLUDED.source_updated "
+            + "AND processed_earthquakes.population_100km IS NULL AND EXCLUDED.population_100km IS NOT NULL)";
+
+    static final int[] ARG_TYPES = {
+            Types.VARCHAR, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.DOUBLE, Types.DOUBLE,
+            Types.DOUBLE, Types.BOOLEAN, Types.VARCHAR, Types.BOOLEAN, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE,
+            Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.TIMESTAMP, Types.TIMESTAMP };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProcessedEarthquakeUpsertWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void write(Chunk<? extends ProcessedEarthquake> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batchArgs = new ArrayList<>(chunk.size());
+        for (ProcessedEarthquake item : latestPerGlobalId(chunk)) {
+            batchArgs.add(new Object[] {
+                    item.getEarthquakeGlobalId(),
+                    item.getMagnitude(),
+                    item.getMagType(),
+                    item.getPlace(),
+                    toTimestamp(item.getEventTime()),
+                    item.getLatitude(),
+                    item.getLongitude(),
+                    item.getDepth(),
+                    item.getTsunami(),
+                    item.getAlertLevel(),
+                    item.getIsSignificant(),
+                    item.getNearestCity(),
+                    item.getDistanceToNearestCityKm(),
+                    item.getPopulation100km(),
+                    item.getAvgAge100km(),
+                    item.getPercentMale100km(),
+                    item.getPercentFemale100km(),
+                    toTimestamp(item.getProcessedAt()),
+                    toTimestamp(item.getSourceUpdated()) });
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batchArgs, ARG_TYPES);
+    }
+
+    /**
+     * Keep one item per earthquake_global_id, the one with the newest source updated timestamp.
+     * The driver may rewrite the batch into one multi row INSERT, and ON CONFLICT DO UPDATE
+     * cannot touch the same row twice within a statement.
+     * @param chunk chunk to write
+     * @return items to write, in chunk order of first appearance
+     */
+    static List<ProcessedEarthquake> latestPerGlobalId(Chunk<? extends ProcessedEarthquake> chunk) {
+        Map<String, ProcessedEarthquake> latest = new LinkedHashMap<>();
+        for (ProcessedEarthquake item : chunk) {
+            latest.merge(item.getEarthquakeGlobalId(), item,
+                    (current, candidate) -> isNewer(candidate.getSourceUpdated(), current.getSourceUpdated()) ? candidate : current);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    private static boolean isNewer(LocalDateTime candidate, LocalDateTime current) {
+        if (candidate == null) {
+            return false;
+        }
+        return current == null || candidate.isAfter(current);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
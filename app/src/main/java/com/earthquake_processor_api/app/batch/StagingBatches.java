@@ -0,0 +1,52 @@
+package com.earthquake_processor_api.app.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The staging requests claimed by a run of earthquakeJob. ClaimStagingBatchesTasklet stores their
+ * ids in the job execution context; the readers and the partitioner only see those requests'
+ * partitions, and DropStagingPartitionsTasklet drops exactly them at the end.
+ */
+final class StagingBatches {
+
+    static final String KEY = "stagingBatches";
+
+    private StagingBatches() {
+    }
+
+    /**
+     * SQL condition limiting earthquake_events to the claimed requests; the ids are inlined so
+     * PostgreSQL prunes the other partitions when planning
+     * @param requestIds claimed request ids, null for no limit
+     * @return SQL condition
+     */
+    static String condition(List<Long> requestIds) {
+        if (requestIds == null) {
+            return "1 = 1";
+        }
+        if (requestIds.isEmpty()) {
+            return "1 = 0";
+        }
+        return "earthquake_request_id IN (" + requestIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(", ")) + ")";
+    }
+
+    /**
+     * Claimed request ids from a job execution context
+     * @param jobExecutionContext job execution context
+     * @return request ids, empty when nothing was claimed
+     */
+    static List<Long> from(Map<String, Object> jobExecutionContext) {
+        List<Long> requestIds = new ArrayList<>();
+        if (jobExecutionContext.get(KEY) instanceof List<?> values) {
+            for (Object value : values) {
+                requestIds.add(((Number) value).longValue());
+            }
+        }
+        return requestIds;
+    }
+}
@@ -0,0 +1,137 @@
+package com.earthquake_processor_api.app.config;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Shared HTTP clients for the external APIs. Connections are pooled per host and kept alive between
+ * calls, so repeated USGS and WorldPop requests reuse an open TLS connection instead of handshaking
+ * every time. Responses are requested gzip compressed and pool usage is published as metrics.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final int maxConnections;
+    private final int maxConnectionsPerHost;
+    private final Duration keepAlive;
+    private final Duration pendingAcquireTimeout;
+
+    HttpClientConfig(@Value("${external.api.http.connect-timeout:5s}") Duration connectTimeout,
+                     @Value("${external.api.http.read-timeout:30s}") Duration readTimeout,
+                     @Value("${external.api.http.max-connections:100}") int maxConnections,
+                     @Value("${external.api.http.max-connections-per-host:20}") int maxConnectionsPerHost,
+                     @Value("${external.api.http.keep-alive:60s}") Duration keepAlive,
+                     @Value("${external.api.http.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.keepAlive = keepAlive;
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+    }
+
+    /**
+     * Blocking connection pool used by the RestTemplate (USGS), published as httpcomponents.httpclient.pool.*
+     * @param meterRegistry meter registry
+     * @return pooling connection manager
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "rest-template").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Apache HttpClient on the shared pool. Content compression is on by default, so responses are
+     * requested with Accept-Encoding gzip and decompressed transparently.
+     * @param connectionManager pooling connection manager
+     * @return http client
+     */
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(pendingAcquireTimeout.toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient httpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+
+    /**
+     * Non-blocking connection pool used by the WebClient (WorldPop), published as reactor.netty.connection.provider.*
+     * Reactor Netty keeps a separate pool per remote address and maxConnections bounds each of them, so
+     * max-connections-per-host is the limit here. There is no total across hosts: max-connections only
+     * applies to the RestTemplate pool. The WebClient only talks to WorldPop, a single host, so its
+     * per-host limit is also its total.
+     * @return connection provider
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider webClientConnectionProvider() {
+        return ConnectionProvider.builder("external-api")
+                // per remote address, see above
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(keepAlive)
+                .evictInBackground(keepAlive)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder webClientBuilder, ConnectionProvider webClientConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(webClientConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout)
+                .keepAlive(true)
+                .compress(true);
+
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
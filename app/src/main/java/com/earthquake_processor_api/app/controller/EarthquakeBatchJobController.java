@@ -1,47 +1,61 @@
 package com.earthquake_processor_api.app.controller;
 
-import org.springframework.batch.core.Job;
-import org.springframework.batch.core.JobParameters;
-import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.earthquake_processor_api.app.entity.JobProgress;
+import com.earthquake_processor_api.app.service.EarthquakeJobService;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
 
 @RestController
+@Slf4j
 @Tag(name = "Earthquake Batch Job Controller", description = "Controller to trigger earthquake batch processing jobs")
 public class EarthquakeBatchJobController {
 
-    private final JobLauncher jobLauncher;
-    private final Job earthquakeJob;
+    private final EarthquakeJobService earthquakeJobService;
 
-    public EarthquakeBatchJobController(JobLauncher jobLauncher, Job earthquakeJob) {
-        this.jobLauncher = jobLauncher;
-        this.earthquakeJob = earthquakeJob;
+    public EarthquakeBatchJobController(EarthquakeJobService earthquakeJobService) {
+        this.earthquakeJobService = earthquakeJobService;
     }
 
     @PostMapping("/batch/earthquakes")
     @PreAuthorize("hasRole('user.read')")
-    @Operation(summary = "Trigger Earthquake Batch Job", description = "Starts the batch job to process raw earthquake data.")
+    @Operation(summary = "Trigger Earthquake Batch Job", description = "Starts the batch job to process raw earthquake data in the background and returns its execution id. Returns 409 while a run is already active.")
     @Scheduled(cron="0 0 1 * * *")
-    public ResponseEntity<String> runEarthquakeBatch() {
+    public ResponseEntity<Object> runEarthquakeBatch() {
         try {
-            JobParameters params = new JobParametersBuilder()
-                    .addLong("time", System.currentTimeMillis()) // ensures unique run
-                    .toJobParameters();
-
-            jobLauncher.run(earthquakeJob, params);
-
-            return ResponseEntity.ok("Earthquake batch job started successfully");
+            JobProgress progress = earthquakeJobService.launch();
+            return ResponseEntity.accepted().body(progress);
+        } catch (JobExecutionAlreadyRunningException e) {
+            log.warn(e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body("Failed to start earthquake batch job: " + e.getMessage());
         }
     }
-}
 
+    @GetMapping("/batch/earthquakes/executions/latest")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Latest Earthquake Batch Job Progress", description = "Returns status, item counts, throughput and ETA of the most recent run.")
+    public ResponseEntity<JobProgress> getLatestProgress() {
+        return ResponseEntity.of(earthquakeJobService.latestProgress());
+    }
+
+    @GetMapping("/batch/earthquakes/executions/{executionId}")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Earthquake Batch Job Progress", description = "Returns status, item counts, throughput and ETA of a run.")
+    public ResponseEntity<JobProgress> getProgress(@PathVariable long executionId) {
+        return ResponseEntity.of(earthquakeJobService.progress(executionId));
+    }
+}
@@ -4,18 +4,19 @@ import java.time.format.DateTimeFormatter;
 
 import org.springframework.web.bind.annotation.RestController;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import com.earthquake_processor_api.app.entity.EarthquakeRequest;
+import com.earthquake_processor_api.app.entity.StagingSummary;
+import com.earthquake_processor_api.app.service.EarthquakeFetchPlanner;
 import com.earthquake_processor_api.app.service.EarthquakeService;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 
 @RestController
@@ -24,16 +25,19 @@ public class EarthquakeController {
 
     private final EarthquakeService earthquakeService;
 
+    private final EarthquakeFetchPlanner earthquakeFetchPlanner;
+
 
-    public EarthquakeController(EarthquakeService earthquakeService) {
+    public EarthquakeController(EarthquakeService earthquakeService, EarthquakeFetchPlanner earthquakeFetchPlanner) {
         this.earthquakeService = earthquakeService;
+        this.earthquakeFetchPlanner = earthquakeFetchPlanner;
     }
 
     @GetMapping("earthquakes")
     @PreAuthorize("hasRole('user.read')")
     @Operation(summary = "Fetch Earthquake Events", description = "Fetches earthquake events from the external API for the past day, and stages them into the database for processing.")
     @Scheduled(cron = "0 0 0 * * *")
-    public void stageRawEarthquakeEvents() throws JsonMappingException, JsonProcessingException{
+    public void stageRawEarthquakeEvents() {
 
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(1);
@@ -45,7 +49,35 @@ public class EarthquakeController {
             .endtime(endDate.format(formatter))
             .build();
             
-        earthquakeService.fetchEarthquakes(request);
+        earthquakeService.stageEarthquakes(request);
+    }
+
+    @GetMapping("earthquakes/incremental")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Fetch Updated Earthquake Events", description = "Fetches only earthquake events added or updated since the last incremental run, and stages them into the database for processing.")
+    @Scheduled(cron = "${earthquake.ingest.incremental.cron:-}")
+    public StagingSummary stageUpdatedEarthquakeEvents() {
+        return earthquakeService.stageUpdatedEarthquakes();
+    }
+
+    @GetMapping("earthquakes/range")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Fetch Earthquake Events For A Range", description = "Fetches earthquake events between starttime and endtime in parallel time windows sized to stay under the USGS result cap, and stages them into the database for processing.")
+    public ResponseEntity<StagingSummary> stageRawEarthquakeEventsForRange(@RequestParam String starttime,
+                                                                           @RequestParam String endtime,
+                                                                           @RequestParam(required = false) String minmagnitude) {
+        EarthquakeRequest request = EarthquakeRequest.builder()
+            .starttime(starttime)
+            .endtime(endtime)
+            .minmagnitude(minmagnitude)
+            .build();
+
+        try {
+            earthquakeFetchPlanner.validateRange(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(earthquakeFetchPlanner.stageRange(request));
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.earthquake_processor_api.app.controller;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquakeQuery;
+import com.earthquake_processor_api.app.entity.ParquetExportSummary;
+import com.earthquake_processor_api.app.service.EarthquakeSpatialIndex;
+import com.earthquake_processor_api.app.service.ParquetExportService;
+import com.earthquake_processor_api.app.service.ProcessedEarthquakeExportService;
+import com.earthquake_processor_api.app.service.ProcessedEarthquakeService;
+import com.earthquake_processor_api.app.service.ResponseCache;
+import com.earthquake_processor_api.app.service.SignificantEarthquakeBroadcaster;
+import com.earthquake_processor_api.app.util.ExportFormat;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@Slf4j
+@Tag(name = "Processed Earthquake Controller", description = "Controller to query processed earthquakes")
+public class ProcessedEarthquakeController {
+
+    private final ProcessedEarthquakeService processedEarthquakeService;
+
+    private final EarthquakeSpatialIndex earthquakeSpatialIndex;
+
+    private final ResponseCache responseCache;
+
+    private final ProcessedEarthquakeExportService processedEarthquakeExportService;
+
+    private final ParquetExportService parquetExportService;
+
+    private final SignificantEarthquakeBroadcaster significantEarthquakeBroadcaster;
+
+    public ProcessedEarthquakeController(ProcessedEarthquakeService processedEarthquakeService,
+                                         EarthquakeSpatialIndex earthquakeSpatialIndex,
+                                         ResponseCache responseCache,
+                                         ProcessedEarthquakeExportService processedEarthquakeExportService,
+                                         ParquetExportService parquetExportService,
+                                         SignificantEarthquakeBroadcaster significantEarthquakeBroadcaster) {
+        this.processedEarthquakeService = processedEarthquakeService;
+        this.earthquakeSpatialIndex = earthquakeSpatialIndex;
+        this.responseCache = responseCache;
+        this.processedEarthquakeExportService = processedEarthquakeExportService;
+        this.parquetExportService = parquetExportService;
+        this.significantEarthquakeBroadcaster = significantEarthquakeBroadcaster;
+    }
+
+    @GetMapping("earthquakes/processed")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Query Processed Earthquakes", description = "Returns processed earthquakes matching the filters, newest first. Pass the returned nextCursor to get the following page.")
+    public ResponseEntity<byte[]> getProcessedEarthquakes(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime starttime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endtime,
+            @RequestParam(required = false) Double minmagnitude,
+            @RequestParam(required = false) Double maxmagnitude,
+            @RequestParam(required = false) Double minlatitude,
+            @RequestParam(required = false) Double maxlatitude,
+            @RequestParam(required = false) Double minlongitude,
+            @RequestParam(required = false) Double maxlongitude,
+            @RequestParam(required = false) Boolean significant,
+            @RequestParam(required = false) String alertlevel,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        ProcessedEarthquakeQuery query = ProcessedEarthquakeQuery.builder()
+                .startTime(starttime)
+                .endTime(endtime)
+                .minMagnitude(minmagnitude)
+                .maxMagnitude(maxmagnitude)
+                .minLatitude(minlatitude)
+                .maxLatitude(maxlatitude)
+                .minLongitude(minlongitude)
+                .maxLongitude(maxlongitude)
+                .isSignificant(significant)
+                .alertLevel(alertlevel)
+                .build();
+
+        try {
+            return cachedJson("processed:" + query + ":" + cursor + ":" + limit,
+                    () -> processedEarthquakeService.findPage(query, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("earthquakes/processed/nearby")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Processed Earthquakes Near A Point", description = "Returns processed earthquakes within radiuskm of the point, nearest first, served from the in-memory spatial index.")
+    public ResponseEntity<byte[]> getNearbyEarthquakes(@RequestParam double latitude,
+                                                       @RequestParam double longitude,
+                                                       @RequestParam double radiuskm,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        if (!isValidPoint(latitude, longitude) || radiuskm <= 0 || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return cachedJson("nearby:" + latitude + ":" + longitude + ":" + radiuskm + ":" + limit,
+                () -> earthquakeSpatialIndex.withinRadius(latitude, longitude, radiuskm, limit));
+    }
+
+    @GetMapping("earthquakes/processed/nearest")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Nearest Processed Earthquakes", description = "Returns the k processed earthquakes nearest to the point, served from the in-memory spatial index.")
+    public ResponseEntity<byte[]> getNearestEarthquakes(@RequestParam double latitude,
+                                                        @RequestParam double longitude,
+                                                        @RequestParam(defaultValue = "10") int k) {
+        if (!isValidPoint(latitude, longitude) || k < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return cachedJson("nearest:" + latitude + ":" + longitude + ":" + k,
+                () -> earthquakeSpatialIndex.nearest(latitude, longitude, k));
+    }
+
+    @GetMapping("earthquakes/processed/export")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Export Processed Earthquakes", description = "Streams every processed earthquake as ndjson, csv or geojson, optionally gzip compressed. Rows are read from a database cursor and written as they arrive.")
+    public ResponseEntity<StreamingResponseBody> exportProcessedEarthquakes(@RequestParam(defaultValue = "ndjson") String format,
+                                                                            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                processedEarthquakeExportService.export(exportFormat, gzipOut);
+                gzipOut.finish();
+            } else {
+                processedEarthquakeExportService.export(exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("processed_earthquakes." + exportFormat.getValue())
+                        .build()
+                        .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping(value = "earthquakes/processed/significant/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Stream Significant Earthquakes", description = "Server-Sent Events stream pushing each processed earthquake written with isSignificant = true, optionally filtered by minimum magnitude and bounding box.")
+    public ResponseEntity<SseEmitter> streamSignificantEarthquakes(@RequestParam(required = false) Double minmagnitude,
+                                                                   @RequestParam(required = false) Double minlatitude,
+                                                                   @RequestParam(required = false) Double maxlatitude,
+                                                                   @RequestParam(required = false) Double minlongitude,
+                                                                   @RequestParam(required = false) Double maxlongitude) {
+        if ((minlatitude != null && maxlatitude != null && minlatitude > maxlatitude)
+                || (minlongitude != null && maxlongitude != null && minlongitude > maxlongitude)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(significantEarthquakeBroadcaster.subscribe(new SignificantEarthquakeBroadcaster.Filter(
+                    minmagnitude, minlatitude, maxlatitude, minlongitude, maxlongitude)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("earthquakes/processed/export/parquet")
+    @PreAuthorize("hasRole('user.read')")
+    @Operation(summary = "Export Processed Earthquakes To Parquet", description = "Rewrites the Parquet export of processed earthquakes, partitioned by event date, in the configured export directory.")
+    public ResponseEntity<ParquetExportSummary> exportProcessedEarthquakesToParquet() {
+        try {
+            return ResponseEntity.ok(parquetExportService.export());
+        } catch (IOException e) {
+            log.error("Parquet export failed", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Respond with the cached JSON for a key and its ETag. Spring answers a GET whose If-None-Match
+     * matches the ETag with 304 and no body, so clients revalidate for free until the next job run.
+     * @param key endpoint and normalized query
+     * @param loader produces the response body on a cache miss
+     * @return JSON response
+     */
+    private ResponseEntity<byte[]> cachedJson(String key, Supplier<?> loader) {
+        ResponseCache.CachedResponse cached = responseCache.get(key, loader);
+        return ResponseEntity.ok()
+                .eTag(cached.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cached.body());
+    }
+
+    private boolean isValidPoint(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+}
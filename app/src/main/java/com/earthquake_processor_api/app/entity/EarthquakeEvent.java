@@ -12,7 +12,8 @@ import lombok.*;
 public class EarthquakeEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) 
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "earthquake_events_seq")
+    @SequenceGenerator(name = "earthquake_events_seq", sequenceName = "earthquake_events_id_seq", allocationSize = 50)
     private Long id;
 
     private String earthquakeGlobalId;
@@ -0,0 +1,75 @@
+package com.earthquake_processor_api.app.entity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a staged earthquake_events row that enrichment reads, without the
+ * request it was staged by
+ */
+public record EarthquakeEventRow(long id,
+                                 String earthquakeGlobalId,
+                                 Double magnitude,
+                                 String magType,
+                                 String place,
+                                 LocalDateTime time,
+                                 LocalDateTime updated,
+                                 Boolean tsunami,
+                                 String alert,
+                                 Double longitude,
+                                 Double latitude,
+                                 Double depth) {
+
+    public static final String COLUMNS = "id, earthquake_global_id, magnitude, mag_type, place, time, updated, "
+            + "tsunami, alert, longitude, latitude, depth";
+
+    /**
+     * Map the current row of a query selecting COLUMNS
+     * @param resultSet result set positioned on a row
+     * @param rowNum row number, unused
+     * @return row
+     * @throws SQLException on read errors
+     */
+    public static EarthquakeEventRow map(ResultSet resultSet, int rowNum) throws SQLException {
+        return new EarthquakeEventRow(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getObject(3, Double.class),
+                resultSet.getString(4),
+                resultSet.getString(5),
+                toLocalDateTime(resultSet.getTimestamp(6)),
+                toLocalDateTime(resultSet.getTimestamp(7)),
+                resultSet.getObject(8, Boolean.class),
+                resultSet.getString(9),
+                resultSet.getObject(10, Double.class),
+                resultSet.getObject(11, Double.class),
+                resultSet.getObject(12, Double.class));
+    }
+
+    /**
+     * Project an event that was not staged, e.g. one read from the realtime feed
+     * @param event earthquake event
+     * @return row, with id 0 when the event has none
+     */
+    public static EarthquakeEventRow of(EarthquakeEvent event) {
+        return new EarthquakeEventRow(
+                event.getId() != null ? event.getId() : 0L,
+                event.getEarthquakeGlobalId(),
+                event.getMagnitude(),
+                event.getMagType(),
+                event.getPlace(),
+                toLocalDateTime(event.getTime()),
+                toLocalDateTime(event.getUpdated()),
+                event.getTsunami(),
+                event.getAlert(),
+                event.getLongitude(),
+                event.getLatitude(),
+                event.getDepth());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
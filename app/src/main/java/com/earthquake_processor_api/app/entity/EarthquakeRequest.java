@@ -6,6 +6,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,7 +22,8 @@ import lombok.NoArgsConstructor;
 public class EarthquakeRequest {
 
     @Id
-    @GeneratedValue(strategy=jakarta.persistence.GenerationType.IDENTITY)
+    @GeneratedValue(strategy=jakarta.persistence.GenerationType.SEQUENCE, generator = "earthquake_requests_seq")
+    @SequenceGenerator(name = "earthquake_requests_seq", sequenceName = "earthquake_requests_id_seq", allocationSize = 50)
     private Long id;
 
     private String starttime;
@@ -31,10 +33,15 @@ public class EarthquakeRequest {
     private String longitude;
     private String maxradiuskm;
     private String orderby;
+    private String updatedafter;
 
     private java.sql.Timestamp requestTime;
     private String responseStatus;
 
+    // set once every event of the request is staged, and once the batch job has processed them
+    private java.sql.Timestamp stagedAt;
+    private java.sql.Timestamp processedAt;
+
     @OneToMany(mappedBy = "request", cascade = jakarta.persistence.CascadeType.ALL, fetch = jakarta.persistence.FetchType.LAZY)
     private List<EarthquakeEvent> earthquakeEvents;
 }
@@ -0,0 +1,29 @@
+package com.earthquake_processor_api.app.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "ingestion_watermarks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionWatermark {
+
+    @Id
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "watermark", nullable = false)
+    private java.sql.Timestamp watermark;
+
+    @Column(name = "updated_at", nullable = false)
+    private java.sql.Timestamp updatedAt;
+}
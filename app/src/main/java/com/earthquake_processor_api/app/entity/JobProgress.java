@@ -0,0 +1,24 @@
+package com.earthquake_processor_api.app.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class JobProgress {
+    Long executionId;
+    String status;
+    String exitCode;
+    String currentStep;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    Long stagedEvents;
+    long readCount;
+    long processedCount;
+    long writeCount;
+    long skipCount;
+    Double itemsPerSecond;
+    Long etaSeconds;
+}
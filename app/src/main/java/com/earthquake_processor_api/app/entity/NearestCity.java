@@ -0,0 +1,25 @@
+package com.earthquake_processor_api.app.entity;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class NearestCity {
+    String name;
+    String countryCode;
+    String admin1Code;
+    double latitude;
+    double longitude;
+    double distanceKm;
+
+    /**
+     * City as stored in processed_earthquakes.nearest_city: "name, state" in the US,
+     * "name, country code" elsewhere
+     * @return city label
+     */
+    public String getLabel() {
+        String region = "US".equals(countryCode) && admin1Code != null && !admin1Code.isEmpty() ? admin1Code : countryCode;
+        return region == null || region.isEmpty() ? name : name + ", " + region;
+    }
+}
@@ -0,0 +1,12 @@
+package com.earthquake_processor_api.app.entity;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ParquetExportSummary {
+    long rows;
+    int partitions;
+    String directory;
+}
@@ -0,0 +1,41 @@
+package com.earthquake_processor_api.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "population_cache",
+       uniqueConstraints = {@UniqueConstraint(columnNames = "cell_key")})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopulationCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cell_key", nullable = false)
+    private String cellKey;
+
+    @Column(name = "total_population")
+    private Double totalPopulation;
+
+    @Column(name = "avg_age")
+    private Double avgAge;
+
+    @Column(name = "percent_male")
+    private Double percentMale;
+
+    @Column(name = "percent_female")
+    private Double percentFemale;
+
+    @Column(name = "cached_at", nullable = false)
+    private LocalDateTime cachedAt;
+}
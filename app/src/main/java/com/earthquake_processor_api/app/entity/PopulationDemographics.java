@@ -3,11 +3,15 @@ package com.earthquake_processor_api.app.entity;
 import lombok.Builder;
 import lombok.Data;
 
+/**
+ * Population within a radius. A figure that could not be determined, because WorldPop failed or
+ * the local grid has no age and sex bands, is null rather than 0.
+ */
 @Data
 @Builder
 public class PopulationDemographics {
-    double totalPopulation;
-    double avgAge;
-    double percentMale;
-    double percentFemale;
+    Double totalPopulation;
+    Double avgAge;
+    Double percentMale;
+    Double percentFemale;
 }
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class ProcessedEarthquake {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "processed_earthquakes_seq")
+    @SequenceGenerator(name = "processed_earthquakes_seq", sequenceName = "processed_earthquakes_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "earthquake_global_id", nullable = false)
@@ -70,6 +71,9 @@ public class ProcessedEarthquake {
     @Column(name = "percent_female_100km")
     private Double percentFemale100km;
 
+    @Column(name = "source_updated")
+    private LocalDateTime sourceUpdated;
+
     @Column(name = "processed_at", nullable = false)
     private LocalDateTime processedAt = LocalDateTime.now();
 }
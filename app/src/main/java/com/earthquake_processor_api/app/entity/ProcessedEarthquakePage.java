@@ -0,0 +1,13 @@
+package com.earthquake_processor_api.app.entity;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ProcessedEarthquakePage {
+    List<ProcessedEarthquake> items;
+    String nextCursor;
+}
@@ -0,0 +1,28 @@
+package com.earthquake_processor_api.app.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Filters and seek position for a page of processed earthquakes. Pages are ordered by
+ * event_time then id, newest first; afterEventTime/afterId hold the last row of the previous page.
+ */
+@Data
+@Builder(toBuilder = true)
+public class ProcessedEarthquakeQuery {
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    Double minMagnitude;
+    Double maxMagnitude;
+    Double minLatitude;
+    Double maxLatitude;
+    Double minLongitude;
+    Double maxLongitude;
+    Boolean isSignificant;
+    String alertLevel;
+
+    LocalDateTime afterEventTime;
+    Long afterId;
+}
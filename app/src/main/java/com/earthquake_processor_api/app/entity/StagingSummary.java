@@ -0,0 +1,11 @@
+package com.earthquake_processor_api.app.entity;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StagingSummary {
+    int stagedCount;
+    java.sql.Timestamp maxUpdated;
+}
@@ -0,0 +1,154 @@
+package com.earthquake_processor_api.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.earthquake_processor_api.app.util.PgCopyUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Manages the per staging batch partitions of earthquake_events. On PostgreSQL the table is
+ * list partitioned by earthquake_request_id (see 010_partitioned_staging.yml), so each staging
+ * request writes into its own partition and a processed batch is removed by dropping it. Partitions
+ * are attached and detached without an ACCESS EXCLUSIVE lock on earthquake_events, so staging keeps
+ * running while earthquakeJob reads the table. Needs PostgreSQL 14 or later for DETACH CONCURRENTLY.
+ * On other databases the table is a plain table and the rows are deleted instead.
+ */
+@Repository
+@Slf4j
+public class EarthquakeEventPartitions {
+
+    static final String PARTITIONED_SQL = "SELECT COUNT(*) FROM pg_partitioned_table p "
+            + "JOIN pg_class c ON c.oid = p.partrelid WHERE c.relname = 'earthquake_events' AND pg_table_is_visible(c.oid)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final DataSource dataSource;
+
+    // requests whose partition is known to exist, ids are never reused
+    private final Set<Long> created = ConcurrentHashMap.newKeySet();
+
+    private volatile Boolean partitioned;
+
+    public EarthquakeEventPartitions(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.newTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Partition table holding the events of a staging request
+     * @param requestId earthquake request id
+     * @return table name
+     */
+    public static String partitionName(long requestId) {
+        return "earthquake_events_r" + requestId;
+    }
+
+    /**
+     * Whether earthquake_events is a partitioned table, checked once
+     * @return true on PostgreSQL after the partitioning migration
+     */
+    public boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            result = PgCopyUtils.isPostgres(dataSource)
+                    && jdbcTemplate.queryForObject(PARTITIONED_SQL, Long.class) > 0;
+            partitioned = result;
+        }
+        return result;
+    }
+
+    /**
+     * Create the partitions for the given staging requests if they do not exist yet. Runs and
+     * commits in its own transaction, so the partition is visible to every loader connection
+     * and stays even if the batch being staged rolls back.
+     * <p>
+     * CREATE TABLE ... PARTITION OF would take an ACCESS EXCLUSIVE lock on earthquake_events and
+     * wait behind the job's reader cursor, so the partition is created as a standalone table and
+     * attached, which only takes SHARE UPDATE EXCLUSIVE on the parent.
+     * @param requestIds earthquake request ids
+     */
+    public void ensurePartitions(Collection<Long> requestIds) {
+        if (!isPartitioned()) {
+            return;
+        }
+        for (Long requestId : requestIds) {
+            if (requestId == null || created.contains(requestId)) {
+                continue;
+            }
+            String partition = partitionName(requestId);
+            newTransaction.executeWithoutResult(status -> {
+                // loaders staging the same request wait here instead of racing on the catalog
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + requestId + ")");
+                if (attachState(partition).isEmpty()) {
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition
+                            + " (LIKE earthquake_events INCLUDING DEFAULTS)");
+                    jdbcTemplate.execute("ALTER TABLE earthquake_events ATTACH PARTITION " + partition
+                            + " FOR VALUES IN (" + requestId + ")");
+                }
+            });
+            created.add(requestId);
+        }
+    }
+
+    /**
+     * Remove the staged events of a request. A partition is detached with DETACH PARTITION
+     * CONCURRENTLY on a connection of its own, since that cannot run inside a transaction, and the
+     * detached table is then dropped; neither takes more than SHARE UPDATE EXCLUSIVE on
+     * earthquake_events. A detach left pending by an interrupted run is finalized. Without
+     * partitions the rows are deleted in the caller's transaction.
+     * @param requestId earthquake request id
+     */
+    public void drop(long requestId) {
+        if (isPartitioned()) {
+            String partition = partitionName(requestId);
+            List<Boolean> detachPending = attachState(partition);
+            if (!detachPending.isEmpty()) {
+                executeAutoCommit("ALTER TABLE earthquake_events DETACH PARTITION " + partition
+                        + (Boolean.TRUE.equals(detachPending.get(0)) ? " FINALIZE" : " CONCURRENTLY"));
+            }
+            executeAutoCommit("DROP TABLE IF EXISTS " + partition);
+        } else {
+            jdbcTemplate.update("DELETE FROM earthquake_events WHERE earthquake_request_id = ?", requestId);
+        }
+        created.remove(requestId);
+    }
+
+    /**
+     * Whether a table is attached to earthquake_events
+     * @param partition partition table name
+     * @return empty if not attached, otherwise whether a detach of it is pending
+     */
+    private List<Boolean> attachState(String partition) {
+        return jdbcTemplate.queryForList("SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass('"
+                + partition + "') AND inhparent = 'earthquake_events'::regclass", Boolean.class);
+    }
+
+    private void executeAutoCommit(String sql) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            statement.execute(sql);
+        } catch (SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("Staging partition DDL", sql, e);
+            throw translated != null ? translated : new UncategorizedSQLException("Staging partition DDL", sql, e);
+        }
+    }
+}
@@ -6,6 +6,6 @@ import org.springframework.stereotype.Repository;
 import com.earthquake_processor_api.app.entity.EarthquakeEvent;
 
 @Repository
-public interface EarthquakeEventRepository extends CrudRepository<EarthquakeEvent, Long> {
+public interface EarthquakeEventRepository extends CrudRepository<EarthquakeEvent, Long>, EarthquakeEventRepositoryCustom {
     
 }
@@ -0,0 +1,15 @@
+package com.earthquake_processor_api.app.repository;
+
+import java.util.List;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+
+public interface EarthquakeEventRepositoryCustom {
+
+    /**
+     * Insert a batch of new earthquake events with JDBC batching, then detach them
+     * so the persistence context does not grow across batches
+     * @param events new earthquake events
+     */
+    void saveBatch(List<EarthquakeEvent> events);
+}
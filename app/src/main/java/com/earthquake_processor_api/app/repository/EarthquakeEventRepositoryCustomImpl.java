@@ -0,0 +1,111 @@
+package com.earthquake_processor_api.app.repository;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.util.PgCopyUtils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class EarthquakeEventRepositoryCustomImpl implements EarthquakeEventRepositoryCustom {
+
+    static final String COPY_SQL = "COPY earthquake_events (earthquake_global_id, magnitude, mag_type, place, "
+            + "time, updated, tsunami, status, alert, significance, network, code, types, longitude, latitude, "
+            + "depth, url, detail_url, title, earthquake_request_id) FROM STDIN WITH (FORMAT csv)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DataSource dataSource;
+
+    private final EarthquakeEventPartitions partitions;
+
+    private final boolean useCopy;
+
+    public EarthquakeEventRepositoryCustomImpl(DataSource dataSource,
+                                               EarthquakeEventPartitions partitions,
+                                               @Value("${earthquake.ingest.writer:jpa}") String writer) {
+        this.dataSource = dataSource;
+        this.partitions = partitions;
+
+        boolean copyRequested = "copy".equalsIgnoreCase(writer);
+        this.useCopy = copyRequested && PgCopyUtils.isPostgres(dataSource);
+        if (copyRequested && !useCopy) {
+            log.warn("COPY staging loader needs PostgreSQL, falling back to JPA batch inserts");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void saveBatch(List<EarthquakeEvent> events) {
+        // each staging request has its own partition of earthquake_events
+        partitions.ensurePartitions(events.stream()
+                .map(event -> event.getRequest() != null ? event.getRequest().getId() : null)
+                .collect(Collectors.toSet()));
+
+        if (useCopy) {
+            copyBatch(events);
+            return;
+        }
+
+        for (EarthquakeEvent event : events) {
+            entityManager.persist(event);
+        }
+        // inserts go out as JDBC batches on flush, clearing keeps the context from growing
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Load a batch of earthquake events with a single COPY; ids come from the column default
+     * @param events new earthquake events
+     */
+    private void copyBatch(List<EarthquakeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        StringBuilder csv = new StringBuilder(events.size() * 512);
+        for (EarthquakeEvent event : events) {
+            PgCopyUtils.appendRow(csv,
+                    event.getEarthquakeGlobalId(),
+                    event.getMagnitude(),
+                    event.getMagType(),
+                    event.getPlace(),
+                    event.getTime(),
+                    event.getUpdated(),
+                    event.getTsunami(),
+                    event.getStatus(),
+                    event.getAlert(),
+                    event.getSignificance(),
+                    event.getNetwork(),
+                    event.getCode(),
+                    event.getTypes(),
+                    event.getLongitude(),
+                    event.getLatitude(),
+                    event.getDepth(),
+                    event.getUrl(),
+                    event.getDetailUrl(),
+                    event.getTitle(),
+                    event.getRequest() != null ? event.getRequest().getId() : null);
+        }
+
+        try {
+            PgCopyUtils.copyIn(dataSource, COPY_SQL, csv);
+        } catch (SQLException | IOException e) {
+            throw new DataAccessResourceFailureException("COPY into earthquake_events failed", e);
+        }
+    }
+}
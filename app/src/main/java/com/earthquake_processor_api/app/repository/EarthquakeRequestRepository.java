@@ -1,10 +1,45 @@
 package com.earthquake_processor_api.app.repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.earthquake_processor_api.app.entity.EarthquakeRequest;
 
 @Repository
 public interface EarthquakeRequestRepository extends CrudRepository<EarthquakeRequest, Long> {
+
+    /**
+     * Staging requests that finished staging and whose events were not processed yet
+     * @return request ids in staging order
+     */
+    @Query("SELECT r.id FROM EarthquakeRequest r WHERE r.stagedAt IS NOT NULL AND r.processedAt IS NULL ORDER BY r.id")
+    List<Long> findStagedUnprocessedIds();
+
+    /**
+     * Staging requests that never finished staging, e.g. because the USGS response failed mid stream
+     * @param requestedBefore only requests started before this time
+     * @return request ids
+     */
+    @Query("SELECT r.id FROM EarthquakeRequest r WHERE r.stagedAt IS NULL AND r.processedAt IS NULL "
+            + "AND r.requestTime < :requestedBefore ORDER BY r.id")
+    List<Long> findAbandonedIds(@Param("requestedBefore") Timestamp requestedBefore);
+
+    /**
+     * Mark staging requests as processed
+     * @param ids request ids
+     * @param processedAt processing time
+     * @return number of requests updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EarthquakeRequest r SET r.processedAt = :processedAt WHERE r.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") Timestamp processedAt);
 }
@@ -0,0 +1,10 @@
+package com.earthquake_processor_api.app.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.earthquake_processor_api.app.entity.IngestionWatermark;
+
+@Repository
+public interface IngestionWatermarkRepository extends CrudRepository<IngestionWatermark, String> {
+}
@@ -0,0 +1,47 @@
+package com.earthquake_processor_api.app.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.earthquake_processor_api.app.entity.PopulationCacheEntry;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface PopulationCacheRepository extends CrudRepository<PopulationCacheEntry, Long> {
+
+    Optional<PopulationCacheEntry> findByCellKey(String cellKey);
+
+    /**
+     * Insert or refresh the entry of a grid cell. Runs in its own transaction and cannot hit the
+     * cell_key unique constraint, so a cell stored by another worker never fails the caller's chunk.
+     * @param cellKey grid cell key
+     * @param totalPopulation total population
+     * @param avgAge average age
+     * @param percentMale percent male
+     * @param percentFemale percent female
+     * @param cachedAt cache time
+     * @return number of rows written
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO population_cache "
+            + "(cell_key, total_population, avg_age, percent_male, percent_female, cached_at) "
+            + "VALUES (:cellKey, :totalPopulation, :avgAge, :percentMale, :percentFemale, :cachedAt) "
+            + "ON CONFLICT (cell_key) DO UPDATE SET total_population = EXCLUDED.total_population, "
+            + "avg_age = EXCLUDED.avg_age, percent_male = EXCLUDED.percent_male, "
+            + "percent_female = EXCLUDED.percent_female, cached_at = EXCLUDED.cached_at",
+            nativeQuery = true)
+    int upsert(@Param("cellKey") String cellKey,
+               @Param("totalPopulation") Double totalPopulation,
+               @Param("avgAge") Double avgAge,
+               @Param("percentMale") Double percentMale,
+               @Param("percentFemale") Double percentFemale,
+               @Param("cachedAt") LocalDateTime cachedAt);
+}
@@ -5,10 +5,14 @@ import org.springframework.stereotype.Repository;
 
 import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProcessedEarthquakeRepository extends JpaRepository<ProcessedEarthquake, Long> {
+public interface ProcessedEarthquakeRepository extends JpaRepository<ProcessedEarthquake, Long>, ProcessedEarthquakeRepositoryCustom {
 
     Optional<ProcessedEarthquake> findByEarthquakeGlobalId(String earthquakeGlobalId);
+
+    List<ProcessedEarthquake> findByProcessedAtAfter(LocalDateTime processedAt);
 }
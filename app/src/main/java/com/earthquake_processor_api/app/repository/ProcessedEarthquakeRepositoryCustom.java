@@ -0,0 +1,18 @@
+package com.earthquake_processor_api.app.repository;
+
+import java.util.List;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquakeQuery;
+
+public interface ProcessedEarthquakeRepositoryCustom {
+
+    /**
+     * Find the next page of processed earthquakes matching the query, newest first. Seeks past
+     * (afterEventTime, afterId) instead of using an offset, so every page costs the same.
+     * @param query filters and seek position
+     * @param limit maximum number of rows
+     * @return processed earthquakes ordered by event_time desc, id desc
+     */
+    List<ProcessedEarthquake> findPage(ProcessedEarthquakeQuery query, int limit);
+}
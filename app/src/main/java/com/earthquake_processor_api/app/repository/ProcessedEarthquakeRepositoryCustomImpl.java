@@ -0,0 +1,98 @@
+package com.earthquake_processor_api.app.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquakeQuery;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class ProcessedEarthquakeRepositoryCustomImpl implements ProcessedEarthquakeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProcessedEarthquake> findPage(ProcessedEarthquakeQuery query, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProcessedEarthquake> criteria = cb.createQuery(ProcessedEarthquake.class);
+        Root<ProcessedEarthquake> root = criteria.from(ProcessedEarthquake.class);
+
+        Path<LocalDateTime> eventTime = root.get("eventTime");
+        Path<Long> id = root.get("id");
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isNotNull(eventTime));
+
+        if (query.getStartTime() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(eventTime, query.getStartTime()));
+        }
+        if (query.getEndTime() != null) {
+            predicates.add(cb.lessThan(eventTime, query.getEndTime()));
+        }
+        if (query.getMinMagnitude() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("magnitude"), query.getMinMagnitude()));
+        }
+        if (query.getMaxMagnitude() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("magnitude"), query.getMaxMagnitude()));
+        }
+        if (query.getMinLatitude() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("latitude"), query.getMinLatitude()));
+        }
+        if (query.getMaxLatitude() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("latitude"), query.getMaxLatitude()));
+        }
+        if (query.getMinLongitude() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("longitude"), query.getMinLongitude()));
+        }
+        if (query.getMaxLongitude() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("longitude"), query.getMaxLongitude()));
+        }
+        if (query.getIsSignificant() != null) {
+            predicates.add(cb.equal(root.get("isSignificant"), query.getIsSignificant()));
+        }
+        if (query.getAlertLevel() != null) {
+            predicates.add(cb.equal(root.get("alertLevel"), query.getAlertLevel()));
+        }
+
+        if (query.getAfterEventTime() != null && query.getAfterId() != null) {
+            predicates.add(seekAfter(cb, eventTime, id, query.getAfterEventTime(), query.getAfterId()));
+        }
+
+        criteria.select(root)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(eventTime), cb.desc(id));
+
+        return entityManager.createQuery(criteria)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Seek: rows strictly after the last (event_time, id) of the previous page in descending order.
+     * PostgreSQL cannot use the OR as an index bound, so the redundant event_time <= afterEventTime
+     * lets the backward scan of the (event_time, id) index start at the previous page instead of
+     * filtering its way down from the newest row.
+     * @param cb criteria builder
+     * @param eventTime event time path
+     * @param id id path
+     * @param afterEventTime event time of the last row of the previous page
+     * @param afterId id of the last row of the previous page
+     * @return seek predicate
+     */
+    static Predicate seekAfter(CriteriaBuilder cb, Path<LocalDateTime> eventTime, Path<Long> id,
+                               LocalDateTime afterEventTime, Long afterId) {
+        return cb.and(
+                cb.lessThanOrEqualTo(eventTime, afterEventTime),
+                cb.or(
+                        cb.lessThan(eventTime, afterEventTime),
+                        cb.and(cb.equal(eventTime, afterEventTime), cb.lessThan(id, afterId))));
+    }
+}
@@ -0,0 +1,102 @@
+package com.earthquake_processor_api.app.service;
+
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEventRow;
+import com.earthquake_processor_api.app.entity.NearestCity;
+import com.earthquake_processor_api.app.entity.PopulationDemographics;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Turns a raw earthquake event into a ProcessedEarthquake with its nearest city, population
+ * exposure and significance. Shared by earthquakeJob and the realtime feed, the geocoding and
+ * population lookups are timed as earthquake.enrichment.stage.
+ */
+@Service
+public class EarthquakeEnrichmentService {
+
+    private final PopulationService populationService;
+
+    private final EarthquakeService earthquakeService;
+
+    private final ReverseGeocodingService reverseGeocodingService;
+
+    private final Timer geocodingTimer;
+
+    private final Timer populationTimer;
+
+    public EarthquakeEnrichmentService(PopulationService populationService,
+                                       EarthquakeService earthquakeService,
+                                       ReverseGeocodingService reverseGeocodingService,
+                                       MeterRegistry meterRegistry) {
+        this.populationService = populationService;
+        this.earthquakeService = earthquakeService;
+        this.reverseGeocodingService = reverseGeocodingService;
+        this.geocodingTimer = stageTimer(meterRegistry, "geocoding");
+        this.populationTimer = stageTimer(meterRegistry, "population");
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("earthquake.enrichment.stage")
+                .description("Enrichment lookups per earthquake")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enrich an earthquake event
+     * @param item raw earthquake event
+     * @return processed earthquake
+     * @throws Exception when the population lookup fails
+     */
+    public ProcessedEarthquake enrich(EarthquakeEventRow item) throws Exception {
+
+        //extract needed info from raw earthquake event
+        ProcessedEarthquake processed = new ProcessedEarthquake();
+        processed.setEarthquakeGlobalId(item.earthquakeGlobalId());
+        processed.setMagnitude(item.magnitude());
+        processed.setMagType(item.magType());
+        processed.setPlace(item.place());
+        processed.setLatitude(item.latitude());
+        processed.setLongitude(item.longitude());
+        processed.setDepth(item.depth());
+        processed.setEventTime(item.time());
+        processed.setTsunami(item.tsunami());
+        processed.setAlertLevel(item.alert());
+        processed.setSourceUpdated(item.updated());
+
+        //nearest city and great circle distance from the coordinates, parsed from the place text without them
+        Optional<NearestCity> nearestCity = geocodingTimer.record(
+                () -> reverseGeocodingService.nearestCity(item.latitude(), item.longitude()));
+        if (nearestCity.isPresent()) {
+            processed.setNearestCity(nearestCity.get().getLabel());
+            processed.setDistanceToNearestCityKm(nearestCity.get().getDistanceKm());
+        } else {
+            processed.setNearestCity(earthquakeService.extractNearestCity(item.place()));
+            processed.setDistanceToNearestCityKm(earthquakeService.extractDistanceToNearestCityKm(item.place()));
+        }
+
+        //enrich with population data
+        PopulationDemographics populationDemographics = populationTimer.recordCallable(
+                () -> populationService.fetchPopulation(item.latitude(), item.longitude(), 100));
+        processed.setPopulation100km(populationDemographics.getTotalPopulation());
+        processed.setAvgAge100km(populationDemographics.getAvgAge());
+        processed.setPercentMale100km(populationDemographics.getPercentMale());
+        processed.setPercentFemale100km(populationDemographics.getPercentFemale());
+
+        //determine if significant
+        processed.setIsSignificant(earthquakeService.isSignificantEarthquake(processed.getMagnitude(),
+                                                                             processed.getTsunami(),
+                                                                             processed.getAlertLevel(),
+                                                                             processed.getPopulation100km(),
+                                                                             processed.getDistanceToNearestCityKm()));
+
+        return processed;
+    }
+}
@@ -0,0 +1,242 @@
+package com.earthquake_processor_api.app.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.EarthquakeRequest;
+import com.earthquake_processor_api.app.entity.StagingSummary;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stages a large starttime/endtime range by splitting it into windows that each stay under the
+ * USGS per query cap. Windows are sized with the USGS count method, halving any window that is
+ * over the cap, then fetched concurrently. Every window is recorded as its own EarthquakeRequest
+ * and events seen in more than one window are only staged once.
+ */
+@Service
+@Slf4j
+public class EarthquakeFetchPlanner {
+
+    private final EarthquakeRestService earthquakeRestService;
+    private final EarthquakeService earthquakeService;
+    private final long maxEventsPerWindow;
+    private final Duration minWindow;
+    private final ExecutorService fetchExecutor;
+
+    public EarthquakeFetchPlanner(EarthquakeRestService earthquakeRestService,
+                                  EarthquakeService earthquakeService,
+                                  @Value("${earthquake.ingest.range.max-events-per-window:20000}") long maxEventsPerWindow,
+                                  @Value("${earthquake.ingest.range.min-window:1h}") Duration minWindow,
+                                  @Value("${earthquake.ingest.range.parallelism:4}") int parallelism) {
+        this.earthquakeRestService = earthquakeRestService;
+        this.earthquakeService = earthquakeService;
+        this.maxEventsPerWindow = maxEventsPerWindow;
+        this.minWindow = minWindow;
+        this.fetchExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism), new CustomizableThreadFactory("usgs-fetch-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Stage all earthquakes in the request's time range, window by window
+     * @param request earthquake request, starttime/endtime give the range and the other filters apply to every window
+     * @return staged count and max updated timestamp over all windows
+     */
+    public StagingSummary stageRange(EarthquakeRequest request) {
+        List<Window> windows = planWindows(request);
+        log.info("Fetching " + request.getStarttime() + " to " + request.getEndtime() + " in " + windows.size() + " windows");
+
+        // USGS treats both ends of a window as inclusive, so boundary events can come back twice
+        Set<String> seenGlobalIds = ConcurrentHashMap.newKeySet();
+        Predicate<EarthquakeEvent> firstSeen = event -> seenGlobalIds.add(event.getEarthquakeGlobalId());
+
+        // the first failing window stops the others between features and batches, an interrupt
+        // alone would not reach a window blocked in an HTTP read or a JDBC batch
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<CompletableFuture<StagingSummary>> futures = windows.stream()
+                .map(window -> CompletableFuture.supplyAsync(() -> {
+                            if (cancelled.get()) {
+                                throw new CancellationException("Range failed before window " + window + " started");
+                            }
+                            return earthquakeService.stageEarthquakes(window.toRequest(request), firstSeen, cancelled::get);
+                        }, fetchExecutor)
+                        .whenComplete((summary, failure) -> {
+                            if (failure != null) {
+                                cancelled.set(true);
+                            }
+                        }))
+                .toList();
+
+        // wait for every window, so nothing is still staging rows once the failure is reported
+        StagingSummary total = StagingSummary.builder().stagedCount(0).build();
+        RuntimeException failure = null;
+        for (CompletableFuture<StagingSummary> future : futures) {
+            try {
+                total = merge(total, future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (failure == null && !(cause instanceof CancellationException)) {
+                    failure = cause instanceof RuntimeException runtime ? runtime : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return total;
+    }
+
+    /**
+     * Split the request's time range into windows with at most max-events-per-window events each.
+     * A window over the cap is halved until it fits or reaches min-window.
+     * @param request earthquake request
+     * @return windows in time order
+     */
+    List<Window> planWindows(EarthquakeRequest request) {
+        List<Window> windows = new ArrayList<>();
+        Deque<Window> pending = new ArrayDeque<>();
+        pending.push(range(request));
+
+        while (!pending.isEmpty()) {
+            Window window = pending.pop();
+            long count = earthquakeRestService.countEarthquakes(window.toRequest(request));
+
+            if (count <= maxEventsPerWindow) {
+                if (count > 0) {
+                    windows.add(window);
+                }
+                continue;
+            }
+
+            Duration length = Duration.between(window.start(), window.end());
+            if (length.compareTo(minWindow.multipliedBy(2)) < 0) {
+                log.warn("Window " + window + " has " + count + " events, over the cap of " + maxEventsPerWindow
+                        + " but too short to split further");
+                windows.add(window);
+                continue;
+            }
+
+            LocalDateTime middle = window.start().plus(length.dividedBy(2));
+            pending.push(new Window(middle, window.end()));
+            pending.push(new Window(window.start(), middle));
+        }
+
+        windows.sort(Comparator.comparing(Window::start));
+        return windows;
+    }
+
+    /**
+     * Check that the request's starttime and endtime parse and form a non empty range, before any
+     * USGS call is made
+     * @param request earthquake request
+     * @throws IllegalArgumentException on an unparseable time or a range that ends before it starts
+     */
+    public void validateRange(EarthquakeRequest request) {
+        range(request);
+    }
+
+    private static Window range(EarthquakeRequest request) {
+        LocalDateTime end = request.getEndtime() != null
+                ? parseTime(request.getEndtime())
+                : LocalDateTime.now(ZoneOffset.UTC);
+        // USGS defaults a missing starttime to 30 days before now
+        LocalDateTime start = request.getStarttime() != null
+                ? parseTime(request.getStarttime())
+                : LocalDateTime.now(ZoneOffset.UTC).minusDays(30);
+
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("starttime " + request.getStarttime() + " is not before endtime " + request.getEndtime());
+        }
+        return new Window(start, end);
+    }
+
+    /**
+     * Parse a USGS style time: with an offset such as 2024-01-01T00:00:00Z, converted to UTC,
+     * a local date time taken as UTC, or a date taken as its start
+     * @param time time parameter
+     * @return time in UTC
+     * @throws IllegalArgumentException if time has none of these forms
+     */
+    static LocalDateTime parseTime(String time) {
+        try {
+            return OffsetDateTime.parse(time).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            // no offset
+        }
+        try {
+            return LocalDateTime.parse(time);
+        } catch (DateTimeParseException e) {
+            // no time of day
+        }
+        try {
+            return LocalDate.parse(time).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time: " + time, e);
+        }
+    }
+
+    private static StagingSummary merge(StagingSummary left, StagingSummary right) {
+        Timestamp maxUpdated = left.getMaxUpdated();
+        if (right.getMaxUpdated() != null && (maxUpdated == null || right.getMaxUpdated().after(maxUpdated))) {
+            maxUpdated = right.getMaxUpdated();
+        }
+        return StagingSummary.builder()
+                .stagedCount(left.getStagedCount() + right.getStagedCount())
+                .maxUpdated(maxUpdated)
+                .build();
+    }
+
+    /**
+     * One time window of a planned range
+     * @param start window start, UTC
+     * @param end window end, UTC
+     */
+    record Window(LocalDateTime start, LocalDateTime end) {
+
+        /**
+         * Copy of the template request limited to this window
+         * @param template request whose filters apply to the window
+         * @return new earthquake request for the window
+         */
+        EarthquakeRequest toRequest(EarthquakeRequest template) {
+            return EarthquakeRequest.builder()
+                    .starttime(EarthquakeService.USGS_TIME_FORMATTER.format(start))
+                    .endtime(EarthquakeService.USGS_TIME_FORMATTER.format(end))
+                    .minmagnitude(template.getMinmagnitude())
+                    .latitude(template.getLatitude())
+                    .longitude(template.getLongitude())
+                    .maxradiuskm(template.getMaxradiuskm())
+                    .orderby(template.getOrderby())
+                    .build();
+        }
+    }
+}
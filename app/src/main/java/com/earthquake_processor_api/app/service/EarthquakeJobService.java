@@ -0,0 +1,214 @@
+package com.earthquake_processor_api.app.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.earthquake_processor_api.app.entity.JobProgress;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Launches earthquakeJob in the background and reports its progress from the Spring Batch
+ * metadata. Only one run may be active at a time; an execution that has not been updated for
+ * stale-after (e.g. left STARTED by a crashed instance) no longer blocks new runs.
+ */
+@Service
+@Slf4j
+public class EarthquakeJobService {
+
+    static final String STAGED_EVENTS = "stagedEvents";
+
+    // events of the staging batches the run will claim
+    static final String STAGED_EVENTS_SQL = "SELECT COUNT(*) FROM earthquake_events e "
+            + "JOIN earthquake_requests r ON r.id = e.earthquake_request_id "
+            + "WHERE r.staged_at IS NOT NULL AND r.processed_at IS NULL";
+
+    // steps that read staged events; the partition manager only aggregates its workers at the end
+    private static final Set<String> ENRICHMENT_STEPS = Set.of("earthquakeStep", "earthquakeWorkerStep");
+
+    private final JobLauncher jobLauncher;
+    private final JobExplorer jobExplorer;
+    private final Job earthquakeJob;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration staleAfter;
+
+    @Autowired
+    public EarthquakeJobService(JobRepository jobRepository,
+                                JobExplorer jobExplorer,
+                                Job earthquakeJob,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${earthquake.batch.job.stale-after:12h}") Duration staleAfter) throws Exception {
+        this(asyncJobLauncher(jobRepository), jobExplorer, earthquakeJob, jdbcTemplate, staleAfter);
+    }
+
+    EarthquakeJobService(JobLauncher jobLauncher, JobExplorer jobExplorer, Job earthquakeJob,
+                         JdbcTemplate jdbcTemplate, Duration staleAfter) {
+        this.jobLauncher = jobLauncher;
+        this.jobExplorer = jobExplorer;
+        this.earthquakeJob = earthquakeJob;
+        this.jdbcTemplate = jdbcTemplate;
+        this.staleAfter = staleAfter;
+    }
+
+    private static JobLauncher asyncJobLauncher(JobRepository jobRepository) throws Exception {
+        TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.setTaskExecutor(new SimpleAsyncTaskExecutor("earthquake-job-"));
+        launcher.afterPropertiesSet();
+        return launcher;
+    }
+
+    /**
+     * Start earthquakeJob without waiting for it to finish
+     * @return progress of the new execution
+     * @throws JobExecutionAlreadyRunningException when a run is already active
+     * @throws Exception when the job could not be launched
+     */
+    public synchronized JobProgress launch() throws Exception {
+        Optional<JobExecution> running = findRunning();
+        if (running.isPresent()) {
+            throw new JobExecutionAlreadyRunningException(
+                    "earthquakeJob is already running as execution " + running.get().getId());
+        }
+
+        Long stagedEvents = jdbcTemplate.queryForObject(STAGED_EVENTS_SQL, Long.class);
+        JobParameters params = new JobParametersBuilder()
+                .addLong("time", System.currentTimeMillis()) // ensures unique run
+                .addLong(STAGED_EVENTS, stagedEvents, false)
+                .toJobParameters();
+
+        // the execution is created before run returns, so the next launch sees it as running
+        JobExecution execution = jobLauncher.run(earthquakeJob, params);
+        log.info("Started earthquakeJob execution " + execution.getId() + " for " + stagedEvents + " staged events");
+        return toProgress(execution);
+    }
+
+    /**
+     * Progress of an execution of earthquakeJob
+     * @param executionId job execution id
+     * @return progress, empty when there is no such execution
+     */
+    public Optional<JobProgress> progress(long executionId) {
+        return Optional.ofNullable(jobExplorer.getJobExecution(executionId))
+                .filter(execution -> earthquakeJob.getName().equals(execution.getJobInstance().getJobName()))
+                .map(this::toProgress);
+    }
+
+    /**
+     * Progress of the most recent execution of earthquakeJob
+     * @return progress, empty when the job never ran
+     */
+    public Optional<JobProgress> latestProgress() {
+        return Optional.ofNullable(jobExplorer.getLastJobInstance(earthquakeJob.getName()))
+                .map(jobExplorer::getLastJobExecution)
+                .map(this::toProgress);
+    }
+
+    private Optional<JobExecution> findRunning() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        return jobExplorer.findRunningJobExecutions(earthquakeJob.getName()).stream()
+                .filter(execution -> {
+                    LocalDateTime lastActivity = lastActivity(execution);
+                    return lastActivity == null || lastActivity.isAfter(staleBefore);
+                })
+                .max(Comparator.comparing(JobExecution::getId));
+    }
+
+    /**
+     * Last time the execution made progress. The job execution is not updated while a step runs,
+     * only its step executions are, once per chunk, so the latest of all of them counts.
+     * @param execution job execution
+     * @return last activity, null if none is recorded
+     */
+    private static LocalDateTime lastActivity(JobExecution execution) {
+        LocalDateTime jobActivity = execution.getLastUpdated() != null ? execution.getLastUpdated() : execution.getCreateTime();
+        return execution.getStepExecutions().stream()
+                .map(StepExecution::getLastUpdated)
+                .filter(lastUpdated -> lastUpdated != null)
+                .reduce(jobActivity, (latest, lastUpdated) -> latest == null || lastUpdated.isAfter(latest) ? lastUpdated : latest);
+    }
+
+    JobProgress toProgress(JobExecution execution) {
+        List<StepExecution> enrichmentSteps = execution.getStepExecutions().stream()
+                .filter(step -> ENRICHMENT_STEPS.contains(baseStepName(step.getStepName())))
+                .toList();
+
+        long read = enrichmentSteps.stream().mapToLong(StepExecution::getReadCount).sum();
+        long written = enrichmentSteps.stream().mapToLong(StepExecution::getWriteCount).sum();
+        long filtered = enrichmentSteps.stream().mapToLong(StepExecution::getFilterCount).sum();
+        long skipped = enrichmentSteps.stream().mapToLong(StepExecution::getSkipCount).sum();
+        Long stagedEvents = execution.getJobParameters().getLong(STAGED_EVENTS);
+
+        Double itemsPerSecond = null;
+        Long etaSeconds = null;
+        LocalDateTime enrichmentStart = enrichmentSteps.stream()
+                .map(StepExecution::getStartTime)
+                .filter(start -> start != null)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        if (enrichmentStart != null && read > 0) {
+            LocalDateTime enrichmentEnd = execution.isRunning() ? LocalDateTime.now() : lastEnd(enrichmentSteps, execution);
+            double seconds = Math.max(0.001, Duration.between(enrichmentStart, enrichmentEnd).toMillis() / 1000.0);
+            itemsPerSecond = read / seconds;
+            if (execution.isRunning() && stagedEvents != null) {
+                etaSeconds = (long) Math.ceil(Math.max(0, stagedEvents - read) / itemsPerSecond);
+            }
+        }
+
+        String currentStep = execution.getStepExecutions().stream()
+                .filter(step -> step.getStatus().isRunning())
+                .map(StepExecution::getStepName)
+                .findFirst()
+                .orElse(null);
+
+        return JobProgress.builder()
+                .executionId(execution.getId())
+                .status(execution.getStatus().name())
+                .exitCode(execution.getExitStatus().getExitCode())
+                .currentStep(currentStep)
+                .startTime(execution.getStartTime())
+                .endTime(execution.getEndTime())
+                .stagedEvents(stagedEvents)
+                .readCount(read)
+                .processedCount(written + filtered)
+                .writeCount(written)
+                .skipCount(skipped)
+                .itemsPerSecond(itemsPerSecond)
+                .etaSeconds(etaSeconds)
+                .build();
+    }
+
+    private static LocalDateTime lastEnd(List<StepExecution> steps, JobExecution execution) {
+        return steps.stream()
+                .map(StepExecution::getEndTime)
+                .filter(end -> end != null)
+                .max(Comparator.naturalOrder())
+                .orElse(execution.getEndTime() != null ? execution.getEndTime() : LocalDateTime.now());
+    }
+
+    // partition workers are named <step>:<partition>
+    private static String baseStepName(String stepName) {
+        int separator = stepName.indexOf(':');
+        return separator < 0 ? stepName : stepName.substring(0, separator);
+    }
+}
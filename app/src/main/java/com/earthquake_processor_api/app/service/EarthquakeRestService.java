@@ -1,22 +1,51 @@
 package com.earthquake_processor_api.app.service;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 import com.earthquake_processor_api.app.entity.EarthquakeRequest;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class EarthquakeRestService {
 
     private final RestTemplate restTemplate;
     private String base_url;
+    private String count_url;
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary payloadSize;
 
     public EarthquakeRestService(RestTemplate restTemplate,
-                                 @Value("${external.api.earthquake.base-url:}") String base_url) {
+                                 MeterRegistry meterRegistry,
+                                 @Value("${external.api.earthquake.base-url:}") String base_url,
+                                 @Value("${external.api.earthquake.count-url:}") String count_url) {
         this.restTemplate = restTemplate;
         this.base_url = base_url;
+        // the FDSN count method lives next to query
+        this.count_url = count_url.isEmpty() ? base_url.replaceFirst("/query$", "/count") : count_url;
+        this.meterRegistry = meterRegistry;
+        this.payloadSize = DistributionSummary.builder("usgs.fetch.payload")
+                .description("Size of USGS query response bodies")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /**
@@ -26,7 +55,11 @@ public class EarthquakeRestService {
      * @return URI string
      */
     public String buildUriString(EarthquakeRequest request, String format) {
-        StringBuilder urlBuilder = new StringBuilder(base_url);
+        return buildUriString(base_url, request, format);
+    }
+
+    private String buildUriString(String url, EarthquakeRequest request, String format) {
+        StringBuilder urlBuilder = new StringBuilder(url);
         urlBuilder.append("?format=").append(format);
 
         if (request.getStarttime() != null) {
@@ -50,6 +83,9 @@ public class EarthquakeRestService {
         if (request.getOrderby() != null) {
             urlBuilder.append("&orderby=").append(request.getOrderby());
         }
+        if (request.getUpdatedafter() != null) {
+            urlBuilder.append("&updatedafter=").append(request.getUpdatedafter());
+        }
 
         return urlBuilder.toString();
     }
@@ -62,6 +98,170 @@ public class EarthquakeRestService {
      */
     public ResponseEntity<String> fetchEarthquakes(EarthquakeRequest request, String format) {
         String uri = buildUriString(request, format);
-        return restTemplate.exchange(uri, HttpMethod.GET, null, String.class);
+        ResponseEntity<String> response = timed("query", () -> restTemplate.exchange(uri, HttpMethod.GET, null, String.class));
+
+        if (response != null && response.getBody() != null) {
+            // place names can hold non-ASCII characters, count the UTF-8 bytes rather than the chars
+            payloadSize.record(response.getBody().getBytes(StandardCharsets.UTF_8).length);
+        }
+        return response;
+    }
+
+    /**
+     * Count the earthquakes matching the request with the USGS count method, without fetching them
+     * @param request earthquake request
+     * @return number of matching earthquakes
+     */
+    public long countEarthquakes(EarthquakeRequest request) {
+        String uri = buildUriString(count_url, request, "text");
+        String count = timed("count", () -> restTemplate.getForObject(uri, String.class));
+
+        if (count == null || count.isBlank()) {
+            throw new IllegalArgumentException("Empty count response from US Earthquake API");
+        }
+        return Long.parseLong(count.trim());
+    }
+
+    /**
+     * Fetch earthquakes from external API, handing the unbuffered response to the extractor
+     * @param request earthquake request
+     * @param format response format
+     * @param responseExtractor reads the response body as a stream
+     * @return value returned by the extractor
+     */
+    public <T> T streamEarthquakes(EarthquakeRequest request, String format, ResponseExtractor<T> responseExtractor) {
+        String uri = buildUriString(request, format);
+        return timed("stream", () -> restTemplate.execute(uri, HttpMethod.GET, null, response -> {
+            CountingResponse counting = new CountingResponse(response);
+            try {
+                return responseExtractor.extractData(counting);
+            } finally {
+                payloadSize.record(counting.bytesRead());
+            }
+        }));
+    }
+
+    /**
+     * Fetch a USGS real-time summary feed conditionally. The validators of the previous response
+     * are sent as If-None-Match and If-Modified-Since, so an unchanged feed comes back as an empty 304.
+     * @param url feed url
+     * @param etag ETag of the previous response, or null
+     * @param lastModified Last-Modified of the previous response, or null
+     * @param responseExtractor reads the response, including a 304
+     * @return value returned by the extractor
+     */
+    public <T> T streamFeed(String url, String etag, String lastModified, ResponseExtractor<T> responseExtractor) {
+        return timed("feed", () -> restTemplate.execute(url, HttpMethod.GET, request -> {
+            if (etag != null) {
+                request.getHeaders().setIfNoneMatch(etag);
+            }
+            if (lastModified != null) {
+                request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }, response -> {
+            CountingResponse counting = new CountingResponse(response);
+            try {
+                return responseExtractor.extractData(counting);
+            } finally {
+                payloadSize.record(counting.bytesRead());
+            }
+        }));
+    }
+
+    /**
+     * Time a USGS call as usgs.fetch, tagged with the operation and its outcome. A streamed call
+     * includes the time spent reading and staging the body.
+     * @param operation query, count, stream or feed
+     * @param call the call
+     * @return result of the call
+     */
+    private <T> T timed(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = result instanceof ResponseEntity<?> entity ? outcome(entity.getStatusCode()) : "success";
+            return result;
+        } catch (RestClientResponseException e) {
+            outcome = outcome(e.getStatusCode());
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("usgs.fetch")
+                    .description("USGS FDSN event service calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(HttpStatusCode status) {
+        if (status.is2xxSuccessful()) {
+            return "success";
+        }
+        return status.is4xxClientError() ? "client_error" : status.is5xxServerError() ? "server_error" : "unknown";
+    }
+
+    /**
+     * Response whose body counts the bytes read from it
+     */
+    private static final class CountingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private long bytesRead;
+        private InputStream body;
+
+        CountingResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+        }
+
+        long bytesRead() {
+            return bytesRead;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new FilterInputStream(delegate.getBody()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0) {
+                            bytesRead++;
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int n = super.read(buffer, offset, length);
+                        if (n > 0) {
+                            bytesRead += n;
+                        }
+                        return n;
+                    }
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
     }
 }
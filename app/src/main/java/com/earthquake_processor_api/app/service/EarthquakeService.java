@@ -7,21 +7,39 @@ import org.springframework.stereotype.Service;
 
 import com.earthquake_processor_api.app.repository.EarthquakeEventRepository;
 import com.earthquake_processor_api.app.repository.EarthquakeRequestRepository;
+import com.earthquake_processor_api.app.repository.IngestionWatermarkRepository;
 import com.earthquake_processor_api.app.util.JsonResponseEnum;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 import com.earthquake_processor_api.app.entity.EarthquakeRequest;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.IngestionWatermark;
+import com.earthquake_processor_api.app.entity.StagingSummary;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,18 +53,52 @@ public class EarthquakeService {
 
     private EarthquakeEventRepository earthquakeEventRepository;
 
+    private IngestionWatermarkRepository ingestionWatermarkRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final DistributionSummary stagedPerRun;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
+    static final String USGS_WATERMARK = "usgs-updated";
+
+    static final DateTimeFormatter USGS_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+
+    // compiled once, these run for every processed earthquake
+    private static final Pattern PLACE_OF_SEPARATOR = Pattern.compile("\\sof\\s");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLACE_DISTANCE = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*(km|mi)", Pattern.CASE_INSENSITIVE);
+
     public EarthquakeService(EarthquakeRestService earthquakeRestService,
                              EarthquakeRequestRepository earthquakeRequestRepository,
-                             EarthquakeEventRepository earthquakeEventRepository) {
+                             EarthquakeEventRepository earthquakeEventRepository,
+                             IngestionWatermarkRepository ingestionWatermarkRepository,
+                             MeterRegistry meterRegistry) {
         this.earthquakeRestService = earthquakeRestService;
         this.earthquakeRequestRepository = earthquakeRequestRepository;
         this.earthquakeEventRepository = earthquakeEventRepository;
+        this.ingestionWatermarkRepository = ingestionWatermarkRepository;
+        this.meterRegistry = meterRegistry;
+        this.stagedPerRun = DistributionSummary.builder("earthquake.staged.events")
+                .description("Earthquake events staged per staging run")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     @Value("${external.api.earthquake.format:geojson}")
     private String responseFormat;
+
+    @Value("${earthquake.ingest.batch-size:500}")
+    private int ingestBatchSize;
+
+    @Value("${earthquake.ingest.incremental.initial-lookback:1d}")
+    private Duration initialLookback = Duration.ofDays(1);
+
+    // USGS only returns events that occurred after starttime, which defaults to 30 days ago
+    @Value("${earthquake.ingest.incremental.backfill-horizon:365d}")
+    private Duration backfillHorizon = Duration.ofDays(365);
     
     /**
      * Fetch earthquakes from external API
@@ -89,9 +141,203 @@ public class EarthquakeService {
         }
 
         saveEarthquakeEvents(earthquakeEvents);
+        markStaged(request);
         return earthquakeEvents;
     }
 
+    /**
+     * Fetch earthquakes from external API and stage them while the response is still being read.
+     * Features are parsed one at a time and saved in batches of earthquake.ingest.batch-size,
+     * so memory use does not grow with the size of the response.
+     * @param request earthquake request
+     * @return number of staged earthquake events
+     */
+    public int stageEarthquakes(EarthquakeRequest request) {
+        return stageEarthquakes(request, event -> true).getStagedCount();
+    }
+
+    /**
+     * Fetch earthquakes from external API and stage the ones accepted by the filter
+     * @param request earthquake request
+     * @param filter events that should be staged
+     * @return staged count and max updated timestamp of the staged events
+     */
+    public StagingSummary stageEarthquakes(EarthquakeRequest request, Predicate<EarthquakeEvent> filter) {
+        return stageEarthquakes(request, filter, () -> false);
+    }
+
+    /**
+     * Fetch earthquakes from external API and stage the ones accepted by the filter, stopping
+     * before the next feature or batch once cancelled returns true. A cancelled request is not
+     * marked staged, so its rows are dropped with the abandoned staging partitions.
+     * @param request earthquake request
+     * @param filter events that should be staged
+     * @param cancelled checked between features and before each batch is saved
+     * @return staged count and max updated timestamp of the staged events
+     * @throws CancellationException if cancelled returned true
+     */
+    public StagingSummary stageEarthquakes(EarthquakeRequest request, Predicate<EarthquakeEvent> filter,
+                                           BooleanSupplier cancelled) {
+        request.setRequestTime(new Timestamp(System.currentTimeMillis()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+
+        try {
+            StagingSummary summary = earthquakeRestService.streamEarthquakes(request, responseFormat, response -> {
+                request.setResponseStatus(response.getStatusCode().toString());
+                saveRequest(request);
+
+                if (!request.getResponseStatus().equals(HttpStatus.OK.toString())) {
+                    throw new IllegalArgumentException("Error response from Earthquake API: " + request.getResponseStatus());
+                }
+                return stageFeatures(response.getBody(), request, filter, cancelled);
+            });
+
+            markStaged(request);
+            outcome = "success";
+            stagedPerRun.record(summary.getStagedCount());
+            log.info("Staged " + summary.getStagedCount() + " earthquake events");
+            return summary;
+        } finally {
+            sample.stop(Timer.builder("earthquake.staging")
+                    .description("Staging runs, from the USGS request to the last saved batch")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Stage only events added or updated since the last incremental run. USGS is queried with
+     * updatedafter set to the persisted high-water mark, which then moves to the max updated
+     * timestamp of the staged events. starttime is set to the backfill horizon, so updates to events
+     * older than USGS's 30 day default are picked up too.
+     * @return staged count and max updated timestamp of the staged events
+     */
+    public StagingSummary stageUpdatedEarthquakes() {
+        Timestamp watermark = ingestionWatermarkRepository.findById(USGS_WATERMARK)
+                .map(IngestionWatermark::getWatermark)
+                .orElseGet(() -> Timestamp.from(Instant.now().minus(initialLookback)));
+
+        EarthquakeRequest request = EarthquakeRequest.builder()
+                .starttime(USGS_TIME_FORMATTER.format(Instant.now().minus(backfillHorizon)))
+                .updatedafter(USGS_TIME_FORMATTER.format(watermark.toInstant()))
+                .build();
+
+        // updatedafter is inclusive at millisecond precision, skip what the last run already staged
+        StagingSummary summary = stageEarthquakes(request,
+                event -> event.getUpdated() != null && event.getUpdated().after(watermark));
+
+        if (summary.getMaxUpdated() != null && summary.getMaxUpdated().after(watermark)) {
+            ingestionWatermarkRepository.save(IngestionWatermark.builder()
+                    .name(USGS_WATERMARK)
+                    .watermark(summary.getMaxUpdated())
+                    .updatedAt(new Timestamp(System.currentTimeMillis()))
+                    .build());
+        }
+        return summary;
+    }
+
+    /**
+     * Stream a GeoJSON FeatureCollection (or single Feature) and save its features in batches.
+     * Only one feature tree is held at a time; the small top level members (type, metadata, bbox)
+     * are collected so the document type can be checked.
+     * @param body GeoJSON response body
+     * @param request earthquake request
+     * @param filter events that should be staged
+     * @return staged count and max updated timestamp of the staged events
+     * @throws IOException on read or parsing errors
+     */
+    StagingSummary stageFeatures(InputStream body, EarthquakeRequest request, Predicate<EarthquakeEvent> filter) throws IOException {
+        return stageFeatures(body, request, filter, () -> false);
+    }
+
+    /**
+     * Stream a GeoJSON response like {@link #stageFeatures(InputStream, EarthquakeRequest, Predicate)},
+     * checking cancelled before every feature and every batch save
+     * @param body GeoJSON response body
+     * @param request earthquake request
+     * @param filter events that should be staged
+     * @param cancelled stops staging once it returns true
+     * @return staged count and max updated timestamp of the staged events
+     * @throws IOException on read or parsing errors
+     * @throws CancellationException if cancelled returned true
+     */
+    StagingSummary stageFeatures(InputStream body, EarthquakeRequest request, Predicate<EarthquakeEvent> filter,
+                                 BooleanSupplier cancelled) throws IOException {
+        int batchSize = Math.max(1, ingestBatchSize);
+        int staged = 0;
+        Timestamp maxUpdated = null;
+        List<EarthquakeEvent> batch = new ArrayList<>(batchSize);
+        ObjectNode rootFields = mapper.createObjectNode();
+
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Unexpected GeoJSON type in response");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+
+                if ("features".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        throwIfCancelled(cancelled);
+                        EarthquakeEvent event = mapFeatureNodeToEarthquakeEvent(mapper.readTree(parser), request);
+                        if (!filter.test(event)) {
+                            continue;
+                        }
+                        batch.add(event);
+                        maxUpdated = later(maxUpdated, event.getUpdated());
+
+                        if (batch.size() >= batchSize) {
+                            throwIfCancelled(cancelled);
+                            saveEarthquakeEvents(batch);
+                            staged += batch.size();
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                } else {
+                    rootFields.set(fieldName, mapper.readTree(parser));
+                }
+            }
+        }
+
+        String type = rootFields.path("type").asText();
+        if (type.equals(JsonResponseEnum.FEATURE.getValue())) {
+            EarthquakeEvent event = mapFeatureNodeToEarthquakeEvent(rootFields, request);
+            if (filter.test(event)) {
+                batch.add(event);
+                maxUpdated = later(maxUpdated, event.getUpdated());
+            }
+        }
+        else if (!type.equals(JsonResponseEnum.FEATURE_COLLECTION.getValue())) {
+            throw new IllegalArgumentException("Unexpected GeoJSON type in response");
+        }
+
+        if (!batch.isEmpty()) {
+            throwIfCancelled(cancelled);
+            saveEarthquakeEvents(batch);
+            staged += batch.size();
+        }
+        return StagingSummary.builder()
+                .stagedCount(staged)
+                .maxUpdated(maxUpdated)
+                .build();
+    }
+
+    private static void throwIfCancelled(BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Staging cancelled");
+        }
+    }
+
+    private Timestamp later(Timestamp current, Timestamp candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.after(current) ? candidate : current;
+    }
+
     /**
      * Save earthquake request
      * @param request earthquake request
@@ -100,12 +346,21 @@ public class EarthquakeService {
         earthquakeRequestRepository.save(request);
     }
 
+    /**
+     * Mark every event of the request as staged, making its partition visible to the batch job
+     * @param request earthquake request
+     */
+    private void markStaged(EarthquakeRequest request) {
+        request.setStagedAt(new Timestamp(System.currentTimeMillis()));
+        saveRequest(request);
+    }
+
     /**
      * Save earthquake events
      * @param events list of earthquake events
      */
     private void saveEarthquakeEvents(List<EarthquakeEvent> events) {
-        earthquakeEventRepository.saveAll(events);
+        earthquakeEventRepository.saveBatch(events);
     }
 
     /**
@@ -181,7 +436,7 @@ public class EarthquakeService {
         }
 
         // USGS format: "<distance> <direction> of <city, region>"
-        String[] parts = place.split("\\sof\\s", 2);
+        String[] parts = PLACE_OF_SEPARATOR.split(place, 2);
 
         if (parts.length == 2) {
             return parts[1].trim(); 
@@ -189,7 +444,7 @@ public class EarthquakeService {
 
         // fallback for cases like "Near the coast of Central Chile"
         if (place.toLowerCase().startsWith("near")) {
-            String[] tokens = place.split("\\s+");
+            String[] tokens = WHITESPACE.split(place);
             if (tokens.length >= 2) {
                 return String.join(" ", Arrays.copyOfRange(tokens, tokens.length - 2, tokens.length));
             }
@@ -214,8 +469,7 @@ public class EarthquakeService {
         }
 
         // Match number followed by unit (km or mi)
-        Pattern pattern = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*(km|mi)", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(place);
+        Matcher matcher = PLACE_DISTANCE.matcher(place);
 
         if (matcher.find()) {
             double value = Double.parseDouble(matcher.group(1));
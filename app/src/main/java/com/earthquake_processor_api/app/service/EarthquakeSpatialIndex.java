@@ -0,0 +1,222 @@
+package com.earthquake_processor_api.app.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.earthquake_processor_api.app.entity.NearbyEarthquake;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.repository.ProcessedEarthquakeRepository;
+import com.earthquake_processor_api.app.util.GeoUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory grid index of processed earthquakes for radius and nearest neighbour lookups.
+ * The globe is cut into cells of cell-size-degrees; a lookup only measures the events in the
+ * cells overlapping the search circle. Readers use an immutable snapshot, updates build a new
+ * snapshot that copies just the cells they touch and then swap it in.
+ */
+@Service
+@Slf4j
+public class EarthquakeSpatialIndex {
+
+    // rows written while the previous refresh ran can carry a slightly older processed_at
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(5);
+
+    private static final double MAX_DISTANCE_KM = Math.PI * GeoUtils.EARTH_RADIUS_KM;
+
+    private final ProcessedEarthquakeRepository processedEarthquakeRepository;
+    private final double cellSizeDegrees;
+    private final int latCells;
+    private final int lngCells;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+    // guarded by this
+    private LocalDateTime lastProcessedAt;
+
+    public EarthquakeSpatialIndex(ProcessedEarthquakeRepository processedEarthquakeRepository,
+                                  @Value("${earthquake.spatial-index.cell-size-degrees:1.0}") double cellSizeDegrees) {
+        this.processedEarthquakeRepository = processedEarthquakeRepository;
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.latCells = (int) Math.ceil(180.0 / cellSizeDegrees);
+        this.lngCells = (int) Math.ceil(360.0 / cellSizeDegrees);
+    }
+
+    /**
+     * Load every processed earthquake once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            int loaded = refresh();
+            log.info("Spatial index loaded with " + loaded + " processed earthquakes");
+        } catch (DataAccessException e) {
+            log.warn("Spatial index could not be loaded, it will be filled on the next job run", e);
+        }
+    }
+
+    /**
+     * Add processed earthquakes written since the last refresh, replacing older versions of the same event
+     * @return number of rows read
+     */
+    public synchronized int refresh() {
+        List<ProcessedEarthquake> changed = lastProcessedAt == null
+                ? processedEarthquakeRepository.findAll()
+                : processedEarthquakeRepository.findByProcessedAtAfter(lastProcessedAt.minus(REFRESH_OVERLAP));
+        apply(changed);
+        return changed.size();
+    }
+
+    /**
+     * Publish a new snapshot with the given earthquakes added or replaced
+     * @param changed new or updated processed earthquakes
+     */
+    synchronized void apply(List<ProcessedEarthquake> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Snapshot current = snapshot;
+        Map<Long, List<ProcessedEarthquake>> cells = new HashMap<>(current.cells());
+        Map<String, ProcessedEarthquake> byGlobalId = new HashMap<>(current.byGlobalId());
+        Set<Long> copiedCells = new HashSet<>();
+
+        for (ProcessedEarthquake earthquake : changed) {
+            if (earthquake.getLatitude() == null || earthquake.getLongitude() == null) {
+                continue;
+            }
+            ProcessedEarthquake previous = byGlobalId.put(earthquake.getEarthquakeGlobalId(), earthquake);
+            if (previous != null) {
+                long previousCell = cellOf(previous.getLatitude(), previous.getLongitude());
+                List<ProcessedEarthquake> cell = writableCell(cells, copiedCells, previousCell);
+                cell.removeIf(e -> e.getEarthquakeGlobalId().equals(earthquake.getEarthquakeGlobalId()));
+                if (cell.isEmpty()) {
+                    cells.remove(previousCell);
+                }
+            }
+            writableCell(cells, copiedCells, cellOf(earthquake.getLatitude(), earthquake.getLongitude())).add(earthquake);
+
+            if (earthquake.getProcessedAt() != null
+                    && (lastProcessedAt == null || earthquake.getProcessedAt().isAfter(lastProcessedAt))) {
+                lastProcessedAt = earthquake.getProcessedAt();
+            }
+        }
+
+        snapshot = new Snapshot(cells, byGlobalId);
+    }
+
+    /**
+     * Processed earthquakes within radiusKm of a point, nearest first
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm search radius in kilometers
+     * @param limit maximum number of results
+     * @return nearby earthquakes with their distance
+     */
+    public List<NearbyEarthquake> withinRadius(double lat, double lng, double radiusKm, int limit) {
+        Snapshot current = snapshot;
+        List<NearbyEarthquake> matches = new ArrayList<>();
+
+        double angularRadius = radiusKm / GeoUtils.EARTH_RADIUS_KM;
+        double latDelta = Math.toDegrees(angularRadius);
+        int minLatCell = latCell(Math.max(-90.0, lat - latDelta));
+        int maxLatCell = latCell(Math.min(90.0, lat + latDelta));
+
+        // longitude half-width of the circle's bounding box, every column when the circle covers a pole
+        double latRadians = Math.toRadians(lat);
+        boolean allColumns = angularRadius >= Math.PI / 2 - Math.abs(latRadians);
+        int firstColumn = 0;
+        int columnCount = lngCells;
+        if (!allColumns) {
+            double lngDelta = Math.toDegrees(Math.asin(Math.sin(angularRadius) / Math.cos(latRadians)));
+            firstColumn = (int) Math.floor((lng - lngDelta + 180.0) / cellSizeDegrees);
+            int lastColumn = (int) Math.floor((lng + lngDelta + 180.0) / cellSizeDegrees);
+            columnCount = Math.min(lngCells, lastColumn - firstColumn + 1);
+        }
+
+        for (int row = minLatCell; row <= maxLatCell; row++) {
+            for (int i = 0; i < columnCount; i++) {
+                // columns wrap around the antimeridian
+                int column = Math.floorMod(firstColumn + i, lngCells);
+                List<ProcessedEarthquake> cell = current.cells().get((long) row * lngCells + column);
+                if (cell == null) {
+                    continue;
+                }
+                for (ProcessedEarthquake earthquake : cell) {
+                    double distanceKm = GeoUtils.haversineKm(lat, lng, earthquake.getLatitude(), earthquake.getLongitude());
+                    if (distanceKm <= radiusKm) {
+                        matches.add(NearbyEarthquake.builder().earthquake(earthquake).distanceKm(distanceKm).build());
+                    }
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(NearbyEarthquake::getDistanceKm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * The k processed earthquakes nearest to a point. The search radius starts at one cell and
+     * doubles until it holds k events; a radius search is exact, so those are the k nearest.
+     * @param lat latitude
+     * @param lng longitude
+     * @param k number of earthquakes
+     * @return nearest earthquakes with their distance, nearest first
+     */
+    public List<NearbyEarthquake> nearest(double lat, double lng, int k) {
+        if (k < 1 || snapshot.byGlobalId().isEmpty()) {
+            return List.of();
+        }
+
+        double radiusKm = cellSizeDegrees * GeoUtils.KM_PER_DEGREE;
+        while (true) {
+            List<NearbyEarthquake> matches = withinRadius(lat, lng, radiusKm, k);
+            if (matches.size() >= k || radiusKm >= MAX_DISTANCE_KM) {
+                return matches;
+            }
+            radiusKm = Math.min(radiusKm * 2, MAX_DISTANCE_KM);
+        }
+    }
+
+    /**
+     * Number of indexed earthquakes
+     * @return index size
+     */
+    public int size() {
+        return snapshot.byGlobalId().size();
+    }
+
+    private List<ProcessedEarthquake> writableCell(Map<Long, List<ProcessedEarthquake>> cells, Set<Long> copiedCells, long key) {
+        // lists reachable from the published snapshot are never modified, copy each cell once per update
+        if (copiedCells.add(key) && cells.containsKey(key)) {
+            cells.put(key, new ArrayList<>(cells.get(key)));
+        }
+        return cells.computeIfAbsent(key, k -> new ArrayList<>());
+    }
+
+    private long cellOf(double lat, double lng) {
+        int column = Math.floorMod((int) Math.floor((lng + 180.0) / cellSizeDegrees), lngCells);
+        return (long) latCell(lat) * lngCells + column;
+    }
+
+    private int latCell(double lat) {
+        return Math.min(latCells - 1, Math.max(0, (int) Math.floor((lat + 90.0) / cellSizeDegrees)));
+    }
+
+    private record Snapshot(Map<Long, List<ProcessedEarthquake>> cells, Map<String, ProcessedEarthquake> byGlobalId) {
+    }
+}
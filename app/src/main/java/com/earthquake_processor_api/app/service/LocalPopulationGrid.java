@@ -0,0 +1,258 @@
+package com.earthquake_processor_api.app.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.earthquake_processor_api.app.entity.PopulationDemographics;
+import com.earthquake_processor_api.app.util.GeoUtils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offline population lookups from a gridded population raster (e.g. a WorldPop or GPW grid)
+ * converted to a flat binary file and memory-mapped, so a circle sum reads the covered cells
+ * straight from the page cache instead of running a WorldPop task.
+ *
+ * File layout, little endian:
+ * <pre>
+ *  0  "EQPG"                  magic
+ *  4  int    version          1
+ *  8  int    columns
+ * 12  int    rows
+ * 16  int    bands            1: population, 4: population, male, female, population * mean age
+ * 20  float  noData
+ * 24  double west             longitude of the western edge of column 0
+ * 32  double north            latitude of the northern edge of row 0
+ * 40  double cellSizeDegrees
+ * 64  float32 cells           row by row from the north, bands interleaved per cell
+ * </pre>
+ * Rasters over 2 GB (a global 30 arc second grid is about 3.7 GB per band) are mapped in
+ * chunks of whole rows.
+ */
+@Service
+@Slf4j
+public class LocalPopulationGrid {
+
+    static final byte[] MAGIC = "EQPG".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    static final int POPULATION = 0;
+    static final int MALE = 1;
+    static final int FEMALE = 2;
+    static final int AGE_SUM = 3;
+
+    private final String file;
+
+    private volatile Grid grid;
+
+    public LocalPopulationGrid(@Value("${earthquake.population.grid.file:}") String file) {
+        this.file = file;
+    }
+
+    /**
+     * Map the configured raster; without one every lookup falls through to WorldPop
+     */
+    @PostConstruct
+    public void load() {
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        try {
+            grid = Grid.map(Paths.get(file));
+            log.info("Mapped population grid " + file + ": " + grid.columns + "x" + grid.rows + " cells of "
+                    + grid.cellSizeDegrees + " degrees, " + grid.bands + " bands");
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not map population grid " + file + ", using WorldPop", e);
+        }
+    }
+
+    /**
+     * Whether a raster is mapped
+     * @return true when lookups are answered locally
+     */
+    public boolean isLoaded() {
+        return grid != null;
+    }
+
+    /**
+     * Population demographics within a radius, summed over the grid cells whose centers lie
+     * inside the circle
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm radius in kilometers
+     * @return demographics, empty when no raster is mapped or the point is outside it
+     */
+    public Optional<PopulationDemographics> demographics(double lat, double lng, double radiusKm) {
+        Grid current = grid;
+        if (current == null || !current.covers(lat, lng)) {
+            return Optional.empty();
+        }
+
+        double[] sums = current.sumWithin(lat, lng, radiusKm);
+        double total = sums[POPULATION];
+        PopulationDemographics.PopulationDemographicsBuilder demographics = PopulationDemographics.builder()
+                .totalPopulation(total);
+
+        // age and sex only come with the 4 band layout, otherwise they stay null
+        if (current.bands > AGE_SUM) {
+            double bySex = sums[MALE] + sums[FEMALE];
+            demographics
+                    .avgAge(total > 0 ? sums[AGE_SUM] / total : 0.0)
+                    .percentMale(bySex > 0 ? sums[MALE] / bySex * 100.0 : 0.0)
+                    .percentFemale(bySex > 0 ? sums[FEMALE] / bySex * 100.0 : 0.0);
+        }
+        return Optional.of(demographics.build());
+    }
+
+    static final class Grid {
+        final int columns;
+        final int rows;
+        final int bands;
+        final float noData;
+        final double west;
+        final double north;
+        final double cellSizeDegrees;
+        final boolean global;
+
+        private final MappedByteBuffer[] chunks;
+        private final int rowsPerChunk;
+
+        private Grid(ByteBuffer header, MappedByteBuffer[] chunks, int rowsPerChunk) {
+            this.columns = header.getInt(8);
+            this.rows = header.getInt(12);
+            this.bands = header.getInt(16);
+            this.noData = header.getFloat(20);
+            this.west = header.getDouble(24);
+            this.north = header.getDouble(32);
+            this.cellSizeDegrees = header.getDouble(40);
+            this.global = columns * cellSizeDegrees >= 360.0 - cellSizeDegrees / 2;
+            this.chunks = chunks;
+            this.rowsPerChunk = rowsPerChunk;
+        }
+
+        static Grid map(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining() && channel.read(header) >= 0) {
+                    // read the whole header
+                }
+                for (int i = 0; i < MAGIC.length; i++) {
+                    if (header.get(i) != MAGIC[i]) {
+                        throw new IllegalArgumentException("Not a population grid file: " + path);
+                    }
+                }
+                if (header.getInt(4) != VERSION) {
+                    throw new IllegalArgumentException("Unsupported population grid version " + header.getInt(4));
+                }
+
+                int columns = header.getInt(8);
+                int rows = header.getInt(12);
+                int bands = header.getInt(16);
+                long rowBytes = (long) columns * bands * Float.BYTES;
+                if (columns <= 0 || rows <= 0 || bands <= 0 || header.getDouble(40) <= 0
+                        || channel.size() < HEADER_BYTES + rowBytes * rows) {
+                    throw new IllegalArgumentException("Truncated or invalid population grid " + path);
+                }
+
+                int rowsPerChunk = (int) Math.max(1, Math.min(rows, Integer.MAX_VALUE / rowBytes));
+                MappedByteBuffer[] chunks = new MappedByteBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+                for (int i = 0; i < chunks.length; i++) {
+                    int chunkRows = Math.min(rowsPerChunk, rows - i * rowsPerChunk);
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                            HEADER_BYTES + i * rowsPerChunk * rowBytes, chunkRows * rowBytes);
+                    chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+                }
+                // the mappings stay valid after the channel is closed
+                return new Grid(header, chunks, rowsPerChunk);
+            }
+        }
+
+        boolean covers(double lat, double lng) {
+            double south = north - rows * cellSizeDegrees;
+            if (lat > north || lat < south) {
+                return false;
+            }
+            return global || (lng >= west && lng <= west + columns * cellSizeDegrees);
+        }
+
+        /**
+         * Sum every band over the cells whose centers are within radiusKm great circle distance
+         */
+        double[] sumWithin(double lat, double lng, double radiusKm) {
+            double[] sums = new double[bands];
+            double angularRadius = Math.min(Math.PI, radiusKm / GeoUtils.EARTH_RADIUS_KM);
+            double cosRadius = Math.cos(angularRadius);
+            double sinLat = Math.sin(Math.toRadians(lat));
+            double cosLat = Math.cos(Math.toRadians(lat));
+
+            double radiusDegrees = Math.toDegrees(angularRadius);
+            int firstRow = Math.max(0, (int) Math.floor((north - (lat + radiusDegrees)) / cellSizeDegrees));
+            int lastRow = Math.min(rows - 1, (int) Math.floor((north - (lat - radiusDegrees)) / cellSizeDegrees));
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                double cellLat = Math.toRadians(north - (row + 0.5) * cellSizeDegrees);
+                double sinCellLat = Math.sin(cellLat);
+                double cosCellLat = Math.cos(cellLat);
+
+                // longitude half width of the circle on this row, from the spherical law of cosines
+                double denominator = cosLat * cosCellLat;
+                double halfWidth;
+                if (denominator < 1e-12) {
+                    halfWidth = sinLat * sinCellLat >= cosRadius ? 180 : -1;
+                } else {
+                    double cosHalfWidth = (cosRadius - sinLat * sinCellLat) / denominator;
+                    halfWidth = cosHalfWidth > 1 ? -1 : cosHalfWidth <= -1 ? 180 : Math.toDegrees(Math.acos(cosHalfWidth));
+                }
+                if (halfWidth < 0) {
+                    continue;
+                }
+
+                int firstColumn = (int) Math.ceil((lng - halfWidth - west) / cellSizeDegrees - 0.5);
+                int lastColumn = (int) Math.floor((lng + halfWidth - west) / cellSizeDegrees - 0.5);
+                if (global) {
+                    if (lastColumn - firstColumn + 1 >= columns) {
+                        firstColumn = 0;
+                        lastColumn = columns - 1;
+                    }
+                } else {
+                    firstColumn = Math.max(0, firstColumn);
+                    lastColumn = Math.min(columns - 1, lastColumn);
+                }
+
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    addCell(sums, row, Math.floorMod(column, columns));
+                }
+            }
+            return sums;
+        }
+
+        private void addCell(double[] sums, int row, int column) {
+            ByteBuffer chunk = chunks[row / rowsPerChunk];
+            int offset = ((row % rowsPerChunk) * columns + column) * bands * Float.BYTES;
+
+            float population = chunk.getFloat(offset);
+            if (population == noData || Float.isNaN(population) || population <= 0) {
+                return;
+            }
+            for (int band = 0; band < bands; band++) {
+                float value = chunk.getFloat(offset + band * Float.BYTES);
+                if (value != noData && !Float.isNaN(value)) {
+                    sums[band] += value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.earthquake_processor_api.app.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.earthquake_processor_api.app.entity.ParquetExportSummary;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes processed_earthquakes as Snappy compressed Parquet files, one event_date=yyyy-MM-dd
+ * directory per day, for Databricks to read as a partitioned table. Rows are streamed from a
+ * database cursor in event_time order, rows without an event time last, so only the current day's
+ * writer is open at a time.
+ * Each run writes a new v-* version directory, then repoints the current symlink at it with a
+ * single atomic rename, so readers of current see either the previous or the new export in full.
+ * Older versions are deleted only after the switch.
+ */
+@Service
+@Slf4j
+public class ParquetExportService {
+
+    static final String PARTITION_COLUMN = "event_date";
+
+    // symlink to the latest complete export, the path to read from
+    static final String CURRENT = "current";
+
+    static final String VERSION_PREFIX = "v-";
+
+    // Hive/Spark name for the partition of rows whose partition column is null
+    static final String NULL_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+
+    static final MessageType SCHEMA = Types.buildMessage()
+            .required(PrimitiveTypeName.INT64).named("id")
+            .required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("earthquake_global_id")
+            .optional(PrimitiveTypeName.DOUBLE).named("magnitude")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("mag_type")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("place")
+            .optional(PrimitiveTypeName.INT64).as(micros()).named("event_time")
+            .optional(PrimitiveTypeName.DOUBLE).named("latitude")
+            .optional(PrimitiveTypeName.DOUBLE).named("longitude")
+            .optional(PrimitiveTypeName.DOUBLE).named("depth")
+            .optional(PrimitiveTypeName.BOOLEAN).named("tsunami")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("alert_level")
+            .optional(PrimitiveTypeName.BOOLEAN).named("is_significant")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("nearest_city")
+            .optional(PrimitiveTypeName.DOUBLE).named("distance_to_nearest_city_km")
+            .optional(PrimitiveTypeName.DOUBLE).named("population_100km")
+            .optional(PrimitiveTypeName.DOUBLE).named("avg_age_100km")
+            .optional(PrimitiveTypeName.DOUBLE).named("percent_male_100km")
+            .optional(PrimitiveTypeName.DOUBLE).named("percent_female_100km")
+            .optional(PrimitiveTypeName.INT64).as(micros()).named("processed_at")
+            .optional(PrimitiveTypeName.INT64).as(micros()).named("source_updated")
+            .named("processed_earthquake");
+
+    private static final String SELECT_SQL = "SELECT id, earthquake_global_id, magnitude, mag_type, place, event_time, "
+            + "latitude, longitude, depth, tsunami, alert_level, is_significant, nearest_city, "
+            + "distance_to_nearest_city_km, population_100km, avg_age_100km, percent_male_100km, "
+            + "percent_female_100km, processed_at, source_updated FROM processed_earthquakes ";
+
+    // same order as idx_processed_earthquakes_event_time_id, so the rows come off the index without a sort
+    static final String EXPORT_SQL = SELECT_SQL + "WHERE event_time IS NOT NULL ORDER BY event_time, id";
+
+    // rows without an event time go to the null partition after the dated ones
+    static final String NULL_TIME_EXPORT_SQL = SELECT_SQL + "WHERE event_time IS NULL ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final CompressionCodecName compression;
+
+    public ParquetExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${earthquake.export.fetch-size:1000}") int fetchSize,
+                                @Value("${earthquake.export.parquet.directory:parquet/processed_earthquakes}") String directory,
+                                @Value("${earthquake.export.parquet.compression:snappy}") String compression) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // both export queries read the same snapshot
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.compression = CompressionCodecName.fromConf(compression.toUpperCase());
+    }
+
+    /**
+     * Export every processed earthquake into the configured directory, replacing the previous export
+     * @return rows and partitions written
+     * @throws IOException on file errors
+     */
+    public ParquetExportSummary export() throws IOException {
+        Files.createDirectories(directory);
+        Path version = Files.createTempDirectory(directory, VERSION_PREFIX);
+
+        PartitionedWriter writer = new PartitionedWriter(version);
+        try {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) writer::write);
+                    jdbcTemplate.query(NULL_TIME_EXPORT_SQL, (RowCallbackHandler) writer::write);
+                });
+            } finally {
+                writer.close();
+            }
+            Files.createFile(version.resolve("_SUCCESS"));
+            switchCurrent(version);
+        } catch (UncheckedIOException e) {
+            deleteRecursively(version);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            // current still points at the previous export
+            deleteRecursively(version);
+            throw e;
+        }
+        deletePreviousVersions(version);
+
+        log.info("Exported " + writer.rows + " processed earthquakes to " + writer.partitions
+                + " Parquet partitions in " + version);
+        return ParquetExportSummary.builder()
+                .rows(writer.rows)
+                .partitions(writer.partitions)
+                .directory(directory.resolve(CURRENT).toString())
+                .build();
+    }
+
+    /**
+     * Point the current symlink at a finished version. The new link is created under a temporary
+     * name and renamed over the old one, which replaces it atomically.
+     * @param version directory holding the new event_date=... partitions
+     * @throws IOException on file errors
+     */
+    private void switchCurrent(Path version) throws IOException {
+        Path link = directory.resolve("_" + CURRENT + "-" + version.getFileName());
+        Files.createSymbolicLink(link, version.getFileName());
+        Files.move(link, directory.resolve(CURRENT), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Delete every export other than the current version, including partitions and markers left at
+     * the top level by the unversioned layout and links of an interrupted switch
+     * @param current version the current symlink points at
+     * @throws IOException on file errors
+     */
+    private void deletePreviousVersions(Path current) throws IOException {
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                String name = child.getFileName().toString();
+                boolean previous = name.startsWith(VERSION_PREFIX) || name.startsWith(PARTITION_COLUMN + "=")
+                        || name.startsWith("_" + CURRENT + "-") || name.startsWith("_staging-")
+                        || name.equals("_SUCCESS");
+                if (previous && !child.equals(current)) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.isSymbolicLink(path)) {
+            Files.delete(path);
+            return;
+        }
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path file : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static LogicalTypeAnnotation micros() {
+        // wall clock values as stored in the database, no zone conversion
+        return LogicalTypeAnnotation.timestampType(false, LogicalTypeAnnotation.TimeUnit.MICROS);
+    }
+
+    /**
+     * Writes rows arriving in event_time order, rolling over to a new file when the date changes
+     */
+    private class PartitionedWriter {
+        private final Path root;
+        private final SimpleGroupFactory groupFactory = new SimpleGroupFactory(SCHEMA);
+        private final Configuration configuration = new Configuration(false);
+
+        private ParquetWriter<Group> current;
+        private String currentPartition;
+        private long rows;
+        private int partitions;
+
+        PartitionedWriter(Path root) {
+            this.root = root;
+        }
+
+        void write(ResultSet resultSet) throws SQLException {
+            Timestamp eventTime = resultSet.getTimestamp("event_time");
+            String partition = eventTime != null ? eventTime.toLocalDateTime().toLocalDate().toString() : NULL_PARTITION;
+
+            try {
+                if (!partition.equals(currentPartition)) {
+                    open(partition);
+                }
+                current.write(toGroup(resultSet));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        private void open(String partition) throws IOException {
+            close();
+            Path partitionDirectory = Files.createDirectories(root.resolve(PARTITION_COLUMN + "=" + partition));
+            Path file = partitionDirectory.resolve("part-00000." + compression.name().toLowerCase() + ".parquet");
+
+            current = ExampleParquetWriter.builder(new LocalOutputFile(file))
+                    .withType(SCHEMA)
+                    .withConf(configuration)
+                    .withCompressionCodec(compression)
+                    .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                    .build();
+            currentPartition = partition;
+            partitions++;
+        }
+
+        void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+
+        private Group toGroup(ResultSet resultSet) throws SQLException {
+            Group group = groupFactory.newGroup()
+                    .append("id", resultSet.getLong("id"))
+                    .append("earthquake_global_id", resultSet.getString("earthquake_global_id"));
+
+            appendDouble(group, resultSet, "magnitude");
+            appendString(group, resultSet, "mag_type");
+            appendString(group, resultSet, "place");
+            appendTimestamp(group, resultSet, "event_time");
+            appendDouble(group, resultSet, "latitude");
+            appendDouble(group, resultSet, "longitude");
+            appendDouble(group, resultSet, "depth");
+            appendBoolean(group, resultSet, "tsunami");
+            appendString(group, resultSet, "alert_level");
+            appendBoolean(group, resultSet, "is_significant");
+            appendString(group, resultSet, "nearest_city");
+            appendDouble(group, resultSet, "distance_to_nearest_city_km");
+            appendDouble(group, resultSet, "population_100km");
+            appendDouble(group, resultSet, "avg_age_100km");
+            appendDouble(group, resultSet, "percent_male_100km");
+            appendDouble(group, resultSet, "percent_female_100km");
+            appendTimestamp(group, resultSet, "processed_at");
+            appendTimestamp(group, resultSet, "source_updated");
+            return group;
+        }
+
+        // optional fields are left out of the group when null
+
+        private void appendDouble(Group group, ResultSet resultSet, String column) throws SQLException {
+            double value = resultSet.getDouble(column);
+            if (!resultSet.wasNull()) {
+                group.append(column, value);
+            }
+        }
+
+        private void appendBoolean(Group group, ResultSet resultSet, String column) throws SQLException {
+            boolean value = resultSet.getBoolean(column);
+            if (!resultSet.wasNull()) {
+                group.append(column, value);
+            }
+        }
+
+        private void appendString(Group group, ResultSet resultSet, String column) throws SQLException {
+            String value = resultSet.getString(column);
+            if (value != null) {
+                group.append(column, value);
+            }
+        }
+
+        private void appendTimestamp(Group group, ResultSet resultSet, String column) throws SQLException {
+            Timestamp value = resultSet.getTimestamp(column);
+            if (value != null) {
+                LocalDateTime time = value.toLocalDateTime();
+                group.append(column, time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.earthquake_processor_api.app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.earthquake_processor_api.app.entity.PopulationCacheEntry;
+import com.earthquake_processor_api.app.entity.PopulationDemographics;
+import com.earthquake_processor_api.app.repository.PopulationCacheRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Two tier cache of population demographics, keyed by a quantized lat/lng grid cell and radius.
+ * The in-memory tier is a size bounded LRU with a TTL, the persistent tier is the population_cache
+ * table so lookups survive restarts.
+ */
+@Service
+@Slf4j
+public class PopulationCache {
+
+    private final PopulationCacheRepository populationCacheRepository;
+    private final double cellSizeDegrees;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final boolean persistent;
+
+    private final Map<String, CachedDemographics> memory;
+
+    private final Counter memoryHits;
+    private final Counter persistentHits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public PopulationCache(PopulationCacheRepository populationCacheRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${earthquake.population.cache.cell-size-degrees:0.1}") double cellSizeDegrees,
+                           @Value("${earthquake.population.cache.max-entries:10000}") int maxEntries,
+                           @Value("${earthquake.population.cache.ttl:30d}") Duration ttl,
+                           @Value("${earthquake.population.cache.persistent:true}") boolean persistent) {
+        this.populationCacheRepository = populationCacheRepository;
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.persistent = persistent;
+
+        this.memoryHits = meterRegistry.counter("population.cache.hits", "tier", "memory");
+        this.persistentHits = meterRegistry.counter("population.cache.hits", "tier", "database");
+        this.misses = meterRegistry.counter("population.cache.misses");
+        this.sizeEvictions = meterRegistry.counter("population.cache.evictions", "cause", "size");
+        this.expiredEvictions = meterRegistry.counter("population.cache.evictions", "cause", "expired");
+
+        // access ordered, so the eldest entry is the least recently used one
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDemographics> eldest) {
+                if (size() > PopulationCache.this.maxEntries) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        meterRegistry.gauge("population.cache.size", this, PopulationCache::size);
+    }
+
+    /**
+     * Look up cached demographics for the grid cell containing lat/lng
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm radius in kilometers
+     * @return cached demographics, empty on a miss
+     */
+    public Optional<PopulationDemographics> get(double lat, double lng, double radiusKm) {
+        String key = cellKey(lat, lng, radiusKm);
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (memory) {
+            CachedDemographics cached = memory.get(key);
+            if (cached != null) {
+                if (!isExpired(cached.cachedAt(), now)) {
+                    memoryHits.increment();
+                    return Optional.of(cached.demographics());
+                }
+                memory.remove(key);
+                expiredEvictions.increment();
+            }
+        }
+
+        if (persistent) {
+            Optional<PopulationCacheEntry> entry = findPersistentEntry(key);
+            if (entry.isPresent() && !isExpired(entry.get().getCachedAt(), now)) {
+                PopulationDemographics demographics = toDemographics(entry.get());
+                putInMemory(key, new CachedDemographics(demographics, entry.get().getCachedAt()));
+                persistentHits.increment();
+                return Optional.of(demographics);
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Cache demographics for the grid cell containing lat/lng
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm radius in kilometers
+     * @param demographics demographics to cache
+     */
+    public void put(double lat, double lng, double radiusKm, PopulationDemographics demographics) {
+        String key = cellKey(lat, lng, radiusKm);
+        LocalDateTime now = LocalDateTime.now();
+
+        putInMemory(key, new CachedDemographics(demographics, now));
+
+        if (persistent) {
+            savePersistentEntry(key, demographics, now);
+        }
+    }
+
+    /**
+     * Number of entries in the in-memory tier
+     * @return entry count
+     */
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    /**
+     * Build the cache key: the grid cell containing lat/lng plus the radius. With the default 0.1 degree
+     * cell the location is off by at most ~15 km, which is small compared to the 100 km enrichment radius.
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm radius in kilometers
+     * @return cache key
+     */
+    String cellKey(double lat, double lng, double radiusKm) {
+        long latCell = (long) Math.floor(lat / cellSizeDegrees);
+        long lngCell = (long) Math.floor(lng / cellSizeDegrees);
+        return latCell + ":" + lngCell + ":" + radiusKm + "@" + cellSizeDegrees;
+    }
+
+    private void putInMemory(String key, CachedDemographics cached) {
+        synchronized (memory) {
+            memory.put(key, cached);
+        }
+    }
+
+    private boolean isExpired(LocalDateTime cachedAt, LocalDateTime now) {
+        return cachedAt == null || !cachedAt.plus(ttl).isAfter(now);
+    }
+
+    private Optional<PopulationCacheEntry> findPersistentEntry(String key) {
+        try {
+            return populationCacheRepository.findByCellKey(key);
+        } catch (DataAccessException e) {
+            log.warn("Population cache lookup failed for cell " + key, e);
+            return Optional.empty();
+        }
+    }
+
+    private void savePersistentEntry(String key, PopulationDemographics demographics, LocalDateTime now) {
+        try {
+            populationCacheRepository.upsert(key, demographics.getTotalPopulation(), demographics.getAvgAge(),
+                    demographics.getPercentMale(), demographics.getPercentFemale(), now);
+        } catch (DataAccessException e) {
+            // the upsert has its own transaction, so a failure here leaves the caller's chunk intact
+            log.warn("Population cache store failed for cell " + key, e);
+        }
+    }
+
+    private PopulationDemographics toDemographics(PopulationCacheEntry entry) {
+        return PopulationDemographics.builder()
+                .totalPopulation(entry.getTotalPopulation())
+                .avgAge(entry.getAvgAge())
+                .percentMale(entry.getPercentMale())
+                .percentFemale(entry.getPercentFemale())
+                .build();
+    }
+
+    private record CachedDemographics(PopulationDemographics demographics, LocalDateTime cachedAt) {
+    }
+}
@@ -1,54 +1,105 @@
 package com.earthquake_processor_api.app.service;
 
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 
+/**
+ * Non-blocking client for the WorldPop stats API. A lookup submits a task and then polls it with
+ * exponential backoff; the poll delays of every in-flight task share one scheduler thread and the
+ * HTTP calls run on the WebClient event loop, so no thread is parked while WorldPop computes.
+ */
 @Service
 @Slf4j
 public class PopulationRestService {
 
-    private final RestTemplate restTemplate;
+    private static final ParameterizedTypeReference<Map<String, Object>> MAP_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
     private String baseUrl;
     private String pollTaskUrl;
     private int year;
     private String dataset;
+    private final Duration initialPollInterval;
+    private final Duration maxPollInterval;
+    private final Duration deadline;
+    private final Scheduler pollScheduler = Schedulers.newSingle("worldpop-poll");
     private final ObjectMapper mapper = new ObjectMapper();
 
-    public PopulationRestService(RestTemplate restTemplate,
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary pollIterations;
+    private final Counter timeouts;
+
+    public PopulationRestService(WebClient webClient,
+                                 MeterRegistry meterRegistry,
                                  @Value("${external.api.population.base-url:}") String baseUrl,
                                  @Value("${external.api.population.poll-task-url:}") String pollTaskUrl,
                                  @Value("${external.api.population.year:2020}") int year,
-                                 @Value("${external.api.population.dataset:wpgpas}") String dataset) {
-        this.restTemplate = restTemplate;
+                                 @Value("${external.api.population.dataset:wpgpas}") String dataset,
+                                 @Value("${external.api.population.poll.initial-interval:500ms}") Duration initialPollInterval,
+                                 @Value("${external.api.population.poll.max-interval:4s}") Duration maxPollInterval,
+                                 @Value("${external.api.population.poll.deadline:30s}") Duration deadline) {
+        this.webClient = webClient.mutate()
+            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .build();
         this.baseUrl = baseUrl;
         this.pollTaskUrl = pollTaskUrl;
         this.year = year;
         this.dataset = dataset;
+        this.initialPollInterval = initialPollInterval;
+        this.maxPollInterval = maxPollInterval;
+        this.deadline = deadline;
+        this.meterRegistry = meterRegistry;
+        this.pollIterations = DistributionSummary.builder("worldpop.poll.iterations")
+                .description("Polls needed per WorldPop task")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("worldpop.timeouts")
+                .description("WorldPop lookups abandoned at the deadline")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pollScheduler.dispose();
     }
 
     /**
-     * Fetch population data from WorldPop API
+     * Fetch population data from WorldPop API, blocking the caller until the task completes
      * @param lat latitude
      * @param lng longitude
      * @param radiusKm radius in kilometers
@@ -56,31 +107,154 @@ public class PopulationRestService {
      * @throws Exception on errors
      */
     public List<Map<String, Object>> fetchPopulationData(double lat, double lng, double radiusKm) throws Exception {
+        try {
+            return fetchPopulationDataAsync(lat, lng, radiusKm).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fetch population data from WorldPop API without blocking the caller
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm radius in kilometers
+     * @return future completed with the population pyramid, empty if WorldPop failed or timed out
+     */
+    public CompletableFuture<List<Map<String, Object>>> fetchPopulationDataAsync(double lat, double lng, double radiusKm) {
+        return fetchPopulationDataMono(lat, lng, radiusKm).toFuture();
+    }
+
+    /**
+     * Submit a WorldPop task and poll it until it finishes or the deadline, counted from the submit, passes
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm radius in kilometers
+     * @return mono of the population pyramid, empty list if WorldPop failed or timed out
+     */
+    public Mono<List<Map<String, Object>>> fetchPopulationDataMono(double lat, double lng, double radiusKm) {
+        return Mono.defer(() -> {
+            // the whole lookup, recorded as worldpop.task before the result is handed on
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicBoolean timedOut = new AtomicBoolean();
+
+            // the deadline covers the submit as well as the polling
+            return submitTask(lat, lng, radiusKm)
+                    .flatMap(this::pollForResult)
+                    .timeout(deadline, pollScheduler)
+                    .onErrorResume(TimeoutException.class, e -> {
+                        log.error("Timed out (" + deadline + ") waiting for WorldPop lookup at " + lat + ", " + lng);
+                        timeouts.increment();
+                        timedOut.set(true);
+                        return Mono.just(Collections.<String, Object>emptyMap());
+                    })
+                    .map(this::extractAgeSexPyramid)
+                    .defaultIfEmpty(Collections.emptyList())
+                    .doOnSuccess(pyramid -> sample.stop(taskTimer(
+                            timedOut.get() ? "timeout" : pyramid.isEmpty() ? "failed" : "finished")))
+                    .doOnError(e -> sample.stop(taskTimer("error")))
+                    .doOnCancel(() -> sample.stop(taskTimer("cancelled")));
+        });
+    }
+
+    private Timer taskTimer(String outcome) {
+        return Timer.builder("worldpop.task")
+                .description("WorldPop lookups from submit to result")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Submit a WorldPop stats task for the circle around lat/lng
+     * @param lat latitude
+     * @param lng longitude
+     * @param radiusKm radius in kilometers
+     * @return mono of the task id, empty if WorldPop did not return one
+     */
+    private Mono<String> submitTask(double lat, double lng, double radiusKm) {
         String geojson = buildCircleGeoJson(lat, lng, radiusKm);
-        WebClient client = WebClient.builder()
-            .baseUrl(baseUrl)
-            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-            .build();
         String encoded = URLEncoder.encode(geojson, StandardCharsets.UTF_8);
         URI uri = URI.create(baseUrl + "?dataset=" + dataset + "&year=" + year + "&geojson=" + encoded);
-        
-        Map<?,?> responseBody = client.get()
-                .uri(uri)
-                .retrieve()
-                .bodyToMono(Map.class)
-                .block();
-        
-        if (responseBody == null || responseBody.get("taskid") == null) {
-            log.error("WorldPop did not return a valid taskid");
-            return Collections.emptyList();
-        }
 
-        String taskId = (String) responseBody.get("taskid");
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return webClient.get()
+                    .uri(uri)
+                    .retrieve()
+                    .bodyToMono(MAP_TYPE)
+                    .doOnSuccess(responseBody -> sample.stop(submitTimer(
+                            responseBody != null && responseBody.get("taskid") != null ? "success" : "no_task")))
+                    .doOnError(e -> sample.stop(submitTimer("error")))
+                    .doOnCancel(() -> sample.stop(submitTimer("cancelled")))
+                    .flatMap(responseBody -> {
+                        if (responseBody.get("taskid") == null) {
+                            log.error("WorldPop did not return a valid taskid");
+                            return Mono.<String>empty();
+                        }
+                        return Mono.just((String) responseBody.get("taskid"));
+                    });
+        });
+    }
+
+    private Timer submitTimer(String outcome) {
+        return Timer.builder("worldpop.submit")
+                .description("WorldPop task submissions")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Poll for WorldPop task result, backing off between polls
+     * @param taskId task ID
+     * @return mono of the result map, empty map if the task finished with an error
+     */
+    private Mono<Map<String, Object>> pollForResult(String taskId) {
+        URI uri = URI.create(pollTaskUrl + taskId);
+        AtomicInteger polls = new AtomicInteger();
+
+        return Mono.defer(() -> {
+                    polls.incrementAndGet();
+                    return webClient.get()
+                            .uri(uri)
+                            .retrieve()
+                            .bodyToMono(MAP_TYPE);
+                })
+                .filter(response -> "finished".equalsIgnoreCase((String) response.get("status")))
+                .repeatWhenEmpty(attempts -> attempts.concatMap(attempt -> Mono.delay(pollBackoff(attempt), pollScheduler)))
+                .map(response -> {
+                    if (Boolean.TRUE.equals(response.get("error"))) {
+                        log.error("WorldPop task error: " + response.get("error_message"));
+                        return Collections.<String, Object>emptyMap();
+                    }
+                    return response;
+                })
+                .doOnTerminate(() -> pollIterations.record(polls.get()))
+                .doOnCancel(() -> pollIterations.record(polls.get()));
+    }
 
-        // Poll for result until "finished"
-        Map<?, ?> result = pollForResult(taskId);
+    /**
+     * Delay before the next poll: the initial interval doubled per attempt, capped at the max interval
+     * @param attempt zero based poll attempt
+     * @return delay before the next poll
+     */
+    Duration pollBackoff(long attempt) {
+        Duration backoff = initialPollInterval.multipliedBy(1L << Math.min(attempt, 16));
+        return backoff.compareTo(maxPollInterval) > 0 ? maxPollInterval : backoff;
+    }
 
-        if (result == null || result.isEmpty()) {
+    /**
+     * Extract the age/sex pyramid from a finished WorldPop task
+     * @param result result map
+     * @return population pyramid, empty list if missing
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> extractAgeSexPyramid(Map<String, Object> result) {
+        if (result.isEmpty()) {
             return Collections.emptyList();
         }
         // Extract total population from the final data
@@ -93,31 +267,6 @@ public class PopulationRestService {
         return (List<Map<String, Object>>) data.get("agesexpyramid");
     }
 
-    /**
-     * Poll for WorldPop task result
-     * @param taskId task ID
-     * @return result map
-     * @throws InterruptedException on interruption
-     */
-    private Map<?, ?> pollForResult(String taskId) throws InterruptedException {
-        String url = pollTaskUrl + taskId;
-        for (int i = 0; i < 10; i++) {
-            Map<?, ?> response = restTemplate.getForObject(url, Map.class);
-            if ("finished".equalsIgnoreCase((String) response.get("status"))) {
-                if ((boolean)response.get("error")) {
-                    log.error("WorldPop task error: " + response.get("error_message"));
-                    return Collections.emptyMap();
-                }
-                else{
-                    return response;
-                }
-            }
-            Thread.sleep(1000);
-        }
-        log.error("Timed out (10 seconds) waiting for WorldPop task: " + taskId);
-        return Collections.emptyMap();
-    }
-
 
     /**
      * Build GeoJSON circle around lat/lng with given radius
@@ -155,10 +304,10 @@ public class PopulationRestService {
 
         try {
             // Single serialization to proper escaped JSON string
-            return new ObjectMapper().writeValueAsString(featureCollection);
+            return mapper.writeValueAsString(featureCollection);
         } catch (Exception e) {
             log.error("Error building GeoJSON", e);
             return "";
         }
     }
-}
\ No newline at end of file
+}
@@ -11,12 +11,21 @@ public class PopulationService {
 
     private final PopulationRestService populationRestService;
 
-    public PopulationService(PopulationRestService populationRestService) {
+    private final PopulationCache populationCache;
+
+    private final LocalPopulationGrid localPopulationGrid;
+
+    public PopulationService(PopulationRestService populationRestService, PopulationCache populationCache,
+                             LocalPopulationGrid localPopulationGrid) {
         this.populationRestService = populationRestService;
+        this.populationCache = populationCache;
+        this.localPopulationGrid = localPopulationGrid;
     }
 
     /**
-     * Fetch population demographics for given location and radius
+     * Fetch population demographics for given location and radius, summed from the local
+     * population grid when one is mapped and covers the location, otherwise served from the
+     * population cache when the surrounding grid cell was already enriched
      * @param lat latitude
      * @param lng longitude
      * @param radiusKm radius in kilometers
@@ -24,8 +33,20 @@ public class PopulationService {
      * @throws Exception on errors
      */
     public PopulationDemographics fetchPopulation(double lat, double lng, double radiusKm) throws Exception {
+        Optional<PopulationDemographics> local = localPopulationGrid.demographics(lat, lng, radiusKm);
+        if (local.isPresent()) {
+            return local.get();
+        }
+
+        Optional<PopulationDemographics> cached = populationCache.get(lat, lng, radiusKm);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
         List<Map<String, Object>> pyramid = populationRestService.fetchPopulationData(lat, lng, radiusKm);
 
+        // empty means WorldPop failed or timed out, so it is not cached and every figure stays null,
+        // which marks the processed row for repair by the upsert writer
         if (pyramid.isEmpty()){
             return PopulationDemographics.builder()
                     .build();
@@ -37,7 +58,8 @@ public class PopulationService {
                                                             .percentMale(genderPercentages.get("malePercent"))
                                                             .percentFemale(genderPercentages.get("femalePercent"))
                                                             .build();
-        
+
+        populationCache.put(lat, lng, radiusKm, populationDemographics);
         return populationDemographics;
     }
 
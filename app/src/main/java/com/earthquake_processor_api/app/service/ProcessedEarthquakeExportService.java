@@ -0,0 +1,255 @@
+package com.earthquake_processor_api.app.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.earthquake_processor_api.app.util.ExportFormat;
+import com.earthquake_processor_api.app.util.JsonResponseEnum;
+import com.earthquake_processor_api.app.util.PgCopyUtils;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams the whole processed_earthquakes table to an output stream as NDJSON, CSV or a GeoJSON
+ * FeatureCollection. Rows come from a server side cursor (fetch-size rows per round trip inside a
+ * read-only transaction) and are written as they are read, so memory use does not depend on the
+ * number of rows exported.
+ */
+@Service
+@Slf4j
+public class ProcessedEarthquakeExportService {
+
+    static final String[] COLUMNS = {
+            "id", "earthquake_global_id", "magnitude", "mag_type", "place", "event_time", "latitude", "longitude",
+            "depth", "tsunami", "alert_level", "is_significant", "nearest_city", "distance_to_nearest_city_km",
+            "population_100km", "avg_age_100km", "percent_male_100km", "percent_female_100km", "processed_at",
+            "source_updated" };
+
+    static final String EXPORT_SQL = "SELECT " + String.join(", ", COLUMNS) + " FROM processed_earthquakes ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public ProcessedEarthquakeExportService(DataSource dataSource,
+                                            PlatformTransactionManager transactionManager,
+                                            @Value("${earthquake.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // PostgreSQL only streams with a cursor when autocommit is off, i.e. inside a transaction
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Write every processed earthquake to the output stream
+     * @param format export format
+     * @param out output stream, not closed
+     * @return number of rows exported
+     * @throws IOException on write errors
+     */
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rowWriter = switch (format) {
+            case NDJSON -> new NdjsonRowWriter(jsonFactory.createGenerator(writer));
+            case CSV -> new CsvRowWriter(writer);
+            case GEOJSON -> new GeoJsonRowWriter(jsonFactory.createGenerator(writer));
+        };
+
+        try {
+            rowWriter.start();
+            Long rows = transactionTemplate.execute(status -> {
+                long[] count = {0};
+                jdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) resultSet -> {
+                    try {
+                        rowWriter.row(readRow(resultSet));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+                return count[0];
+            });
+            rowWriter.finish();
+            writer.flush();
+
+            log.info("Exported " + rows + " processed earthquakes as " + format.getValue());
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            // usually the client went away mid export
+            throw e.getCause();
+        }
+    }
+
+    private Object[] readRow(ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object value = resultSet.getObject(i + 1);
+            values[i] = value instanceof Timestamp timestamp ? timestamp.toLocalDateTime().toString() : value;
+        }
+        return values;
+    }
+
+    private interface RowWriter {
+        void start() throws IOException;
+
+        void row(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static void writeField(JsonGenerator generator, String name, Object value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Number number) {
+            generator.writeNumber(number.toString());
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * One JSON object per line
+     */
+    private static class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            // lines are separated by the newline written after each row instead
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                writeField(generator, COLUMNS[i], values[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * Header line then one line per row, text quoted and nulls left empty
+     */
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(512);
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            line.setLength(0);
+            PgCopyUtils.appendRow(line, values);
+            writer.append(line);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * A FeatureCollection with one Point feature per row, the remaining columns as properties
+     */
+    private static class GeoJsonRowWriter implements RowWriter {
+        private static final int GLOBAL_ID = 1;
+        private static final int LATITUDE = 6;
+        private static final int LONGITUDE = 7;
+        private static final int DEPTH = 8;
+
+        private final JsonGenerator generator;
+
+        GeoJsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void start() throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("type", JsonResponseEnum.FEATURE_COLLECTION.getValue());
+            generator.writeArrayFieldStart("features");
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("type", JsonResponseEnum.FEATURE.getValue());
+            writeField(generator, "id", values[GLOBAL_ID]);
+
+            if (values[LATITUDE] != null && values[LONGITUDE] != null) {
+                generator.writeObjectFieldStart("geometry");
+                generator.writeStringField("type", "Point");
+                generator.writeArrayFieldStart("coordinates");
+                generator.writeNumber(values[LONGITUDE].toString());
+                generator.writeNumber(values[LATITUDE].toString());
+                if (values[DEPTH] != null) {
+                    generator.writeNumber(values[DEPTH].toString());
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            } else {
+                generator.writeNullField("geometry");
+            }
+
+            generator.writeObjectFieldStart("properties");
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i != GLOBAL_ID && i != LATITUDE && i != LONGITUDE && i != DEPTH) {
+                    writeField(generator, COLUMNS[i], values[i]);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.flush();
+        }
+    }
+}
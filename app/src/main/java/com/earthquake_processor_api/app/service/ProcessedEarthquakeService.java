@@ -0,0 +1,92 @@
+package com.earthquake_processor_api.app.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquakePage;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquakeQuery;
+import com.earthquake_processor_api.app.repository.ProcessedEarthquakeRepository;
+
+/**
+ * Read side of processed_earthquakes. Pages are keyset paginated on (event_time, id), newest first;
+ * the cursor handed to clients is an opaque encoding of the last row of the page.
+ */
+@Service
+public class ProcessedEarthquakeService {
+
+    private final ProcessedEarthquakeRepository processedEarthquakeRepository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public ProcessedEarthquakeService(ProcessedEarthquakeRepository processedEarthquakeRepository,
+                                      @Value("${earthquake.query.default-page-size:100}") int defaultPageSize,
+                                      @Value("${earthquake.query.max-page-size:1000}") int maxPageSize) {
+        this.processedEarthquakeRepository = processedEarthquakeRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Find a page of processed earthquakes
+     * @param query filters
+     * @param cursor cursor from the previous page, null for the first page
+     * @param limit page size, null for the default
+     * @return page of processed earthquakes with the cursor of the next page, null on the last page
+     */
+    @Transactional(readOnly = true)
+    public ProcessedEarthquakePage findPage(ProcessedEarthquakeQuery query, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+
+        ProcessedEarthquakeQuery seekQuery = cursor == null ? query : decodeCursor(query, cursor);
+
+        // one extra row tells whether another page follows
+        List<ProcessedEarthquake> rows = processedEarthquakeRepository.findPage(seekQuery, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<ProcessedEarthquake> items = hasNext ? rows.subList(0, pageSize) : rows;
+
+        return ProcessedEarthquakePage.builder()
+                .items(List.copyOf(items))
+                .nextCursor(hasNext ? encodeCursor(items.get(items.size() - 1)) : null)
+                .build();
+    }
+
+    /**
+     * Encode the seek position after a row
+     * @param last last row of a page
+     * @return opaque cursor
+     */
+    String encodeCursor(ProcessedEarthquake last) {
+        String position = last.getEventTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Apply the seek position of a cursor to a query
+     * @param query filters
+     * @param cursor opaque cursor
+     * @return copy of the query seeking past the cursor
+     */
+    ProcessedEarthquakeQuery decodeCursor(ProcessedEarthquakeQuery query, String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return query.toBuilder()
+                    .afterEventTime(LocalDateTime.parse(position.substring(0, separator)))
+                    .afterId(Long.parseLong(position.substring(separator + 1)))
+                    .build();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
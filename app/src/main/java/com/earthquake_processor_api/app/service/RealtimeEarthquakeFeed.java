@@ -0,0 +1,400 @@
+package com.earthquake_processor_api.app.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.earthquake_processor_api.app.batch.ProcessedEarthquakeUpsertWriter;
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.EarthquakeEventRow;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.util.PgCopyUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Continuous ingestion off a USGS real-time GeoJSON summary feed, next to the daily staging and
+ * earthquakeJob. The feed is polled every poll-interval on its own scheduler thread with
+ * conditional requests, so an unchanged feed costs a 304. Events that are new or carry a newer
+ * updated time go through a bounded queue to the enrichment workers, which upsert them straight
+ * into processed_earthquakes. When the queue is full an event is left unseen and offered again
+ * on the next poll, and so is an event whose enrichment or write failed. Significant events are pushed to SSE subscribers once written.
+ */
+@Service
+@Slf4j
+public class RealtimeEarthquakeFeed {
+
+    private final EarthquakeRestService earthquakeRestService;
+    private final EarthquakeService earthquakeService;
+    private final EarthquakeEnrichmentService earthquakeEnrichmentService;
+    private final EarthquakeSpatialIndex earthquakeSpatialIndex;
+    private final ResponseCache responseCache;
+    private final SignificantEarthquakeBroadcaster significantEarthquakeBroadcaster;
+    private final ItemWriter<ProcessedEarthquake> writer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final boolean enabled;
+    private final String feedUrl;
+    private final Duration pollInterval;
+    private final int workers;
+    private final int writeBatchSize;
+    private final BlockingQueue<Pending> queue;
+
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter errors;
+
+    // validators of the last feed response, only touched by the poller thread
+    private String etag;
+    private String lastModified;
+
+    // updated time (epoch millis) of every event in the last feed response that was handed to the workers
+    private Map<String, Long> seen = new HashMap<>();
+
+    // events the workers failed to enrich or write, forgotten by the next poll so it offers them again
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolTaskScheduler scheduler;
+    private ExecutorService workerPool;
+    private volatile boolean running;
+
+    @Autowired
+    public RealtimeEarthquakeFeed(EarthquakeRestService earthquakeRestService,
+                                  EarthquakeService earthquakeService,
+                                  EarthquakeEnrichmentService earthquakeEnrichmentService,
+                                  EarthquakeSpatialIndex earthquakeSpatialIndex,
+                                  ResponseCache responseCache,
+                                  SignificantEarthquakeBroadcaster significantEarthquakeBroadcaster,
+                                  DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${earthquake.realtime.enabled:false}") boolean enabled,
+                                  @Value("${earthquake.realtime.feed-url:https://earthquake.usgs.gov/earthquakes/feed/v1.0/summary/all_hour.geojson}") String feedUrl,
+                                  @Value("${earthquake.realtime.poll-interval:60s}") Duration pollInterval,
+                                  @Value("${earthquake.realtime.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${earthquake.realtime.workers:4}") int workers,
+                                  @Value("${earthquake.realtime.write-batch-size:50}") int writeBatchSize) {
+        this(earthquakeRestService, earthquakeService, earthquakeEnrichmentService, earthquakeSpatialIndex,
+                responseCache, significantEarthquakeBroadcaster, enabled && isPostgres(dataSource)
+                        ? new ProcessedEarthquakeUpsertWriter(new JdbcTemplate(dataSource)) : null,
+                new TransactionTemplate(transactionManager), meterRegistry,
+                enabled, feedUrl, pollInterval, queueCapacity, workers, writeBatchSize);
+    }
+
+    RealtimeEarthquakeFeed(EarthquakeRestService earthquakeRestService,
+                           EarthquakeService earthquakeService,
+                           EarthquakeEnrichmentService earthquakeEnrichmentService,
+                           EarthquakeSpatialIndex earthquakeSpatialIndex,
+                           ResponseCache responseCache,
+                           SignificantEarthquakeBroadcaster significantEarthquakeBroadcaster,
+                           ItemWriter<ProcessedEarthquake> writer,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           boolean enabled,
+                           String feedUrl,
+                           Duration pollInterval,
+                           int queueCapacity,
+                           int workers,
+                           int writeBatchSize) {
+        this.earthquakeRestService = earthquakeRestService;
+        this.earthquakeService = earthquakeService;
+        this.earthquakeEnrichmentService = earthquakeEnrichmentService;
+        this.earthquakeSpatialIndex = earthquakeSpatialIndex;
+        this.responseCache = responseCache;
+        this.significantEarthquakeBroadcaster = significantEarthquakeBroadcaster;
+        this.writer = writer;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.feedUrl = feedUrl;
+        this.pollInterval = pollInterval;
+        this.workers = Math.max(1, workers);
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        this.enqueued = meterRegistry.counter("earthquake.realtime.events", "outcome", "enqueued");
+        this.dropped = meterRegistry.counter("earthquake.realtime.events", "outcome", "dropped");
+        this.errors = meterRegistry.counter("earthquake.realtime.events", "outcome", "error");
+        meterRegistry.gauge("earthquake.realtime.queue.size", queue, BlockingQueue::size);
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        // the upsert writer needs INSERT ... ON CONFLICT
+        if (!PgCopyUtils.isPostgres(dataSource)) {
+            log.warn("Realtime feed needs PostgreSQL, it stays disabled");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Start polling and the enrichment workers once the application is up, when enabled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || writer == null || running) {
+            return;
+        }
+        running = true;
+
+        workerPool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("realtime-enrichment-"));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::work);
+        }
+
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("usgs-feed-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::pollSafely, pollInterval);
+
+        log.info("Polling " + feedUrl + " every " + pollInterval + " with " + workers + " enrichment workers");
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Polling " + feedUrl + " failed, retrying in " + pollInterval, e);
+        }
+    }
+
+    /**
+     * Fetch the feed and queue the events that are new or were updated since the last poll
+     * @return number of events queued, 0 when the feed did not change
+     */
+    int poll() {
+        forgetFailed();
+        List<EarthquakeEvent> events = earthquakeRestService.streamFeed(feedUrl, etag, lastModified, response -> {
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                return null;
+            }
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new IllegalArgumentException("Error response from USGS feed: " + response.getStatusCode());
+            }
+            List<EarthquakeEvent> parsed;
+            try {
+                parsed = earthquakeService.parseMultipleEarthquakeEvents(mapper.readTree(response.getBody()), null);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Could not parse USGS feed", e);
+            }
+            etag = response.getHeaders().getETag();
+            lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+            return parsed;
+        });
+
+        if (events == null) {
+            return 0;
+        }
+
+        // events leave the feed window for good, so only the current ones need remembering
+        Map<String, Long> current = new HashMap<>();
+        int queued = 0;
+        long now = System.nanoTime();
+        for (EarthquakeEvent event : events) {
+            long updated = event.getUpdated() != null ? event.getUpdated().getTime() : 0;
+            Long previous = seen.get(event.getEarthquakeGlobalId());
+            if (previous != null && previous >= updated) {
+                current.put(event.getEarthquakeGlobalId(), previous);
+                continue;
+            }
+
+            if (queue.offer(new Pending(EarthquakeEventRow.of(event), now))) {
+                current.put(event.getEarthquakeGlobalId(), updated);
+                enqueued.increment();
+                queued++;
+            } else {
+                // not remembered, so the next poll offers it again
+                if (previous != null) {
+                    current.put(event.getEarthquakeGlobalId(), previous);
+                }
+                dropped.increment();
+            }
+        }
+        seen = current;
+
+        if (queued > 0) {
+            log.info("Queued " + queued + " new or updated earthquakes from the realtime feed");
+        }
+        return queued;
+    }
+
+    /**
+     * Drop failed events from seen. The validators are dropped too, an unchanged feed would
+     * otherwise answer 304 and the events would not come back until USGS changes it.
+     */
+    private void forgetFailed() {
+        if (failed.isEmpty()) {
+            return;
+        }
+        for (Iterator<String> ids = failed.iterator(); ids.hasNext(); ) {
+            seen.remove(ids.next());
+            ids.remove();
+        }
+        etag = null;
+        lastModified = null;
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Pending> batch = new ArrayList<>(writeBatchSize);
+                batch.add(first);
+                queue.drainTo(batch, writeBatchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Realtime enrichment batch failed", e);
+            }
+        }
+    }
+
+    /**
+     * Enrich and upsert a batch of queued events, then make them visible to the read side.
+     * Events that fail to enrich or write are counted as errors and offered again by the next poll.
+     * @param batch queued events
+     */
+    void process(List<Pending> batch) {
+        List<ProcessedEarthquake> processed = new ArrayList<>(batch.size());
+        List<Pending> enriched = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            try {
+                processed.add(earthquakeEnrichmentService.enrich(pending.row()));
+                enriched.add(pending);
+            } catch (Exception e) {
+                errors.increment();
+                failed.add(pending.row().earthquakeGlobalId());
+                log.warn("Could not enrich " + pending.row().earthquakeGlobalId() + " from the realtime feed", e);
+            }
+        }
+        if (processed.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    writer.write(new Chunk<>(processed));
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not write realtime earthquakes", e);
+                }
+            });
+        } catch (RuntimeException e) {
+            errors.increment(enriched.size());
+            for (Pending pending : enriched) {
+                failed.add(pending.row().earthquakeGlobalId());
+            }
+            log.warn("Could not write " + enriched.size() + " realtime earthquakes, retrying on the next poll", e);
+            return;
+        }
+
+        earthquakeSpatialIndex.apply(processed);
+        responseCache.invalidate();
+        // the transaction has committed by now, so this publishes right away
+        significantEarthquakeBroadcaster.publishAfterCommit(processed);
+
+        long written = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Timer queued = latencyTimer("queue");
+        Timer source = latencyTimer("source");
+        for (Pending pending : enriched) {
+            queued.record(written - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            if (pending.row().updated() != null) {
+                source.record(Duration.between(pending.row().updated(), now));
+            }
+        }
+    }
+
+    /**
+     * Time from an event being queued (queue) or updated at USGS (source) until it is written
+     * @param since queue or source
+     * @return latency timer
+     */
+    private Timer latencyTimer(String since) {
+        return Timer.builder("earthquake.realtime.latency")
+                .description("Realtime feed latency until the processed earthquake is written")
+                .tag("since", since)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Number of events waiting for enrichment
+     * @return queue size
+     */
+    int queueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Take the queued events without processing them
+     * @return queued events in order
+     */
+    List<Pending> drainQueue() {
+        List<Pending> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        return pending;
+    }
+
+    /**
+     * A feed event waiting for enrichment
+     * @param row event
+     * @param enqueuedNanos System.nanoTime() when it was queued
+     */
+    record Pending(EarthquakeEventRow row, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.earthquake_processor_api.app.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of serialized read endpoint responses, keyed by endpoint and normalized query. Each entry
+ * keeps the JSON bytes and a strong ETag over them, so a repeated poll is answered without a
+ * database query or serialization, and a matching If-None-Match without a body at all.
+ * The data only changes when earthquakeJob writes, which invalidates the whole cache.
+ */
+@Service
+public class ResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final Map<String, CachedResponse> entries;
+
+    // bumped on every invalidation, a response loaded across one is not cached
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ResponseCache(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${earthquake.response-cache.max-entries:1000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("response.cache.hits");
+        this.misses = meterRegistry.counter("response.cache.misses");
+
+        // access ordered, so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+        meterRegistry.gauge("response.cache.size", this, ResponseCache::size);
+    }
+
+    /**
+     * Get the cached response for a key, loading and serializing it on a miss
+     * @param key endpoint and normalized query
+     * @param loader produces the response body
+     * @return serialized response with its ETag
+     */
+    public CachedResponse get(String key, Supplier<?> loader) {
+        long loadGeneration;
+        synchronized (entries) {
+            CachedResponse cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+
+        misses.increment();
+        CachedResponse loaded = serialize(loader.get());
+
+        synchronized (entries) {
+            if (loadGeneration == generation) {
+                entries.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop every cached response
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Number of cached responses
+     * @return entry count
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private CachedResponse serialize(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return new CachedResponse(json, "\"" + HexFormat.of().formatHex(digest) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Serialized JSON body and its strong ETag (quoted)
+     * @param body JSON bytes
+     * @param etag strong ETag
+     */
+    public record CachedResponse(byte[] body, String etag) {
+    }
+}
@@ -0,0 +1,340 @@
+package com.earthquake_processor_api.app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import com.earthquake_processor_api.app.entity.NearestCity;
+import com.earthquake_processor_api.app.util.GeoUtils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offline reverse geocoding: the nearest city and its great circle distance for a coordinate.
+ * Cities come from a file in the GeoNames cities dump layout (tab separated, name in column 2,
+ * latitude/longitude in 5/6, country code in 9, admin1 code in 11, population in 15), set with
+ * earthquake.geocoding.cities-file. Production should point it at a GeoNames extract such as
+ * cities15000.zip or cities1000.zip, read as downloaded or extracted; the bundled
+ * geonames/cities.tsv only holds a few hundred cities for development and tests.
+ *
+ * Cities are kept as unit vectors in a k-d tree over primitive arrays. The straight line (chord)
+ * distance between unit vectors grows with the great circle distance, so the nearest point in the
+ * tree is the nearest city on the sphere, without trigonometry in the search.
+ */
+@Service
+@Slf4j
+public class ReverseGeocodingService {
+
+    private static final int NAME = 1;
+    private static final int LATITUDE = 4;
+    private static final int LONGITUDE = 5;
+    private static final int COUNTRY_CODE = 8;
+    private static final int ADMIN1_CODE = 10;
+    private static final int POPULATION = 14;
+
+    // cities15000 alone has over 25k, fewer means the small bundled list or a wrong file
+    static final int FULL_EXTRACT_MIN_CITIES = 10_000;
+
+    private final Resource citiesFile;
+    private final long minPopulation;
+
+    private volatile CityIndex index = CityIndex.EMPTY;
+
+    public ReverseGeocodingService(@Value("${earthquake.geocoding.cities-file:classpath:geonames/cities.tsv}") Resource citiesFile,
+                                   @Value("${earthquake.geocoding.min-population:0}") long minPopulation) {
+        this.citiesFile = citiesFile;
+        this.minPopulation = minPopulation;
+    }
+
+    /**
+     * Load the cities file into the index; without a readable file lookups return empty
+     */
+    @PostConstruct
+    public void load() {
+        if (!citiesFile.exists()) {
+            log.warn("Cities file " + citiesFile.getDescription() + " not found, reverse geocoding disabled");
+            return;
+        }
+
+        List<City> cities = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(citiesFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                City city = parseLine(line);
+                if (city == null) {
+                    skipped++;
+                } else if (city.population() >= minPopulation) {
+                    cities.add(city);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not read cities file " + citiesFile.getDescription() + ", reverse geocoding disabled", e);
+            return;
+        }
+
+        index = new CityIndex(cities);
+        log.info("Loaded " + cities.size() + " cities for reverse geocoding from " + citiesFile.getDescription()
+                + (skipped > 0 ? ", skipped " + skipped + " malformed lines" : ""));
+        if (cities.size() < FULL_EXTRACT_MIN_CITIES) {
+            log.warn("Only " + cities.size() + " cities loaded, nearest cities will be coarse. Set "
+                    + "earthquake.geocoding.cities-file to a GeoNames extract such as cities15000.zip");
+        }
+    }
+
+    /**
+     * Open the cities file, or the text file inside it when it is a zip as downloaded from GeoNames
+     * @param file cities file
+     * @return stream of the tab separated lines
+     * @throws IOException when the file cannot be read or the zip holds no .txt file
+     */
+    static InputStream open(Resource file) throws IOException {
+        InputStream input = file.getInputStream();
+        String filename = file.getFilename();
+        if (filename == null || !filename.toLowerCase().endsWith(".zip")) {
+            return input;
+        }
+        ZipInputStream zip = new ZipInputStream(input);
+        for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+            if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".txt")) {
+                return zip;
+            }
+        }
+        zip.close();
+        throw new IOException("No .txt file in " + file.getDescription());
+    }
+
+    /**
+     * Find the nearest city to a coordinate
+     * @param latitude latitude
+     * @param longitude longitude
+     * @return nearest city with its great circle distance, empty without coordinates or cities
+     */
+    public Optional<NearestCity> nearestCity(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(index.nearest(latitude, longitude));
+    }
+
+    /**
+     * Number of cities in the index
+     * @return city count
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Parse one line of the cities file
+     * @param line tab separated line
+     * @return city, null when the line is malformed
+     */
+    static City parseLine(String line) {
+        if (line.isBlank() || line.startsWith("#")) {
+            return null;
+        }
+        String[] columns = line.split("\t", -1);
+        if (columns.length <= POPULATION) {
+            return null;
+        }
+        try {
+            double latitude = Double.parseDouble(columns[LATITUDE]);
+            double longitude = Double.parseDouble(columns[LONGITUDE]);
+            long population = columns[POPULATION].isEmpty() ? 0 : Long.parseLong(columns[POPULATION]);
+            return new City(columns[NAME], columns[COUNTRY_CODE], columns[ADMIN1_CODE], latitude, longitude, population);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    record City(String name, String countryCode, String admin1Code, double latitude, double longitude, long population) {
+    }
+
+    /**
+     * Static k-d tree over city unit vectors. The tree is implicit: the node of the range [lo, hi)
+     * is at (lo + hi) / 2, its children are the ranges left and right of it.
+     */
+    static final class CityIndex {
+        static final CityIndex EMPTY = new CityIndex(List.of());
+
+        private final City[] cities;
+        private final double[][] points;
+        private final byte[] axes;
+
+        CityIndex(List<City> source) {
+            int size = source.size();
+            this.cities = source.toArray(new City[0]);
+            this.points = new double[3][size];
+            this.axes = new byte[size];
+            for (int i = 0; i < size; i++) {
+                setPoint(i, cities[i].latitude(), cities[i].longitude());
+            }
+            build(0, size);
+        }
+
+        int size() {
+            return cities.length;
+        }
+
+        NearestCity nearest(double latitude, double longitude) {
+            if (cities.length == 0) {
+                return null;
+            }
+            double[] query = unitVector(latitude, longitude);
+            Search search = new Search(query);
+            search(search, 0, cities.length);
+
+            City city = cities[search.best];
+            // chord length c between unit vectors is 2 sin(angle / 2)
+            double angle = 2 * Math.asin(Math.min(1.0, Math.sqrt(search.bestDistance) / 2));
+            return NearestCity.builder()
+                    .name(city.name())
+                    .countryCode(city.countryCode())
+                    .admin1Code(city.admin1Code())
+                    .latitude(city.latitude())
+                    .longitude(city.longitude())
+                    .distanceKm(angle * GeoUtils.EARTH_RADIUS_KM)
+                    .build();
+        }
+
+        private void search(Search search, int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            double dx = points[0][mid] - search.query[0];
+            double dy = points[1][mid] - search.query[1];
+            double dz = points[2][mid] - search.query[2];
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance < search.bestDistance) {
+                search.bestDistance = distance;
+                search.best = mid;
+            }
+
+            int axis = axes[mid];
+            double diff = search.query[axis] - points[axis][mid];
+            if (diff < 0) {
+                search(search, lo, mid);
+                if (diff * diff < search.bestDistance) {
+                    search(search, mid + 1, hi);
+                }
+            } else {
+                search(search, mid + 1, hi);
+                if (diff * diff < search.bestDistance) {
+                    search(search, lo, mid);
+                }
+            }
+        }
+
+        /**
+         * Arrange [lo, hi) so the median along the widest axis is at the middle, then recurse
+         */
+        private void build(int lo, int hi) {
+            if (hi - lo <= 1) {
+                return;
+            }
+            int axis = widestAxis(lo, hi);
+            int mid = (lo + hi) >>> 1;
+            select(axis, lo, hi - 1, mid);
+            axes[mid] = (byte) axis;
+            build(lo, mid);
+            build(mid + 1, hi);
+        }
+
+        private int widestAxis(int lo, int hi) {
+            int widest = 0;
+            double widestSpread = -1;
+            for (int axis = 0; axis < 3; axis++) {
+                double min = Double.MAX_VALUE;
+                double max = -Double.MAX_VALUE;
+                for (int i = lo; i < hi; i++) {
+                    min = Math.min(min, points[axis][i]);
+                    max = Math.max(max, points[axis][i]);
+                }
+                if (max - min > widestSpread) {
+                    widestSpread = max - min;
+                    widest = axis;
+                }
+            }
+            return widest;
+        }
+
+        /**
+         * Quickselect on [left, right] so position k holds its sorted value along axis
+         */
+        private void select(int axis, int left, int right, int k) {
+            double[] values = points[axis];
+            while (left < right) {
+                double pivot = values[(left + right) >>> 1];
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (values[i] < pivot) {
+                        i++;
+                    }
+                    while (values[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void swap(int a, int b) {
+            City city = cities[a];
+            cities[a] = cities[b];
+            cities[b] = city;
+            for (double[] axis : points) {
+                double value = axis[a];
+                axis[a] = axis[b];
+                axis[b] = value;
+            }
+        }
+
+        private void setPoint(int i, double latitude, double longitude) {
+            double[] vector = unitVector(latitude, longitude);
+            points[0][i] = vector[0];
+            points[1][i] = vector[1];
+            points[2][i] = vector[2];
+        }
+
+        private static double[] unitVector(double latitude, double longitude) {
+            double lat = Math.toRadians(latitude);
+            double lng = Math.toRadians(longitude);
+            double cosLat = Math.cos(lat);
+            return new double[] { cosLat * Math.cos(lng), cosLat * Math.sin(lng), Math.sin(lat) };
+        }
+
+        private static final class Search {
+            final double[] query;
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+
+            Search(double[] query) {
+                this.query = query;
+            }
+        }
+    }
+}
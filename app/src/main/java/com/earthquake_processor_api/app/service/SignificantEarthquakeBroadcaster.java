@@ -0,0 +1,410 @@
+package com.earthquake_processor_api.app.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes processed earthquakes written with isSignificant = true to Server-Sent Events subscribers.
+ * Publishing never blocks the writer: each earthquake is serialized once and offered to the bounded
+ * queue of every subscriber whose filter matches. A small sender pool drains a subscriber's queue
+ * whenever it has events, one drain per subscriber at a time, so connections hold no servlet thread
+ * and a slow client only ever occupies a sender for its own writes. When a queue is full the
+ * overflow policy either drops the subscriber's oldest event or disconnects it as a slow consumer.
+ * An earthquake is pushed once per source updated time, re-writes of an unchanged event are skipped
+ * for as long as it is among the most recently published ones. Delivery is still at least once: a
+ * restart forgets what was published.
+ */
+@Service
+@Slf4j
+public class SignificantEarthquakeBroadcaster {
+
+    static final String EVENT_NAME = "significant-earthquake";
+
+    // how many published earthquakes are remembered to skip re-writes of unchanged events
+    static final int MAX_RECENT = 10_000;
+
+    private final ObjectMapper objectMapper;
+    private final Executor sender;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxSubscribers;
+    private final Duration timeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // subscriber slots taken, reserved before a subscriber is added so max-subscribers holds
+    private final AtomicInteger slots = new AtomicInteger();
+
+    // source updated time of recently published earthquakes by global id, least recently seen first
+    private final Map<String, LocalDateTime> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LocalDateTime> eldest) {
+            return size() > MAX_RECENT;
+        }
+    };
+
+    private final Counter published;
+    private final Counter unchanged;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter slowDisconnects;
+    private final Counter rejected;
+
+    private ThreadPoolTaskScheduler heartbeat;
+
+    @Autowired
+    public SignificantEarthquakeBroadcaster(ObjectMapper objectMapper,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${earthquake.sse.buffer-size:100}") int bufferSize,
+                                            @Value("${earthquake.sse.overflow:drop-oldest}") String overflowPolicy,
+                                            @Value("${earthquake.sse.max-subscribers:10000}") int maxSubscribers,
+                                            @Value("${earthquake.sse.sender-threads:4}") int senderThreads,
+                                            @Value("${earthquake.sse.timeout:30m}") Duration timeout,
+                                            @Value("${earthquake.sse.heartbeat-interval:30s}") Duration heartbeatInterval) {
+        this(objectMapper, meterRegistry, Executors.newFixedThreadPool(Math.max(1, senderThreads),
+                        new CustomizableThreadFactory("sse-sender-")),
+                bufferSize, OverflowPolicy.fromValue(overflowPolicy), maxSubscribers, timeout);
+
+        heartbeat = new ThreadPoolTaskScheduler();
+        heartbeat.setPoolSize(1);
+        heartbeat.setThreadNamePrefix("sse-heartbeat-");
+        heartbeat.initialize();
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval);
+    }
+
+    SignificantEarthquakeBroadcaster(ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     Executor sender,
+                                     int bufferSize,
+                                     OverflowPolicy overflowPolicy,
+                                     int maxSubscribers,
+                                     Duration timeout) {
+        this.objectMapper = objectMapper;
+        this.sender = sender;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+
+        this.published = meterRegistry.counter("earthquake.sse.events", "outcome", "published");
+        this.unchanged = meterRegistry.counter("earthquake.sse.events", "outcome", "unchanged");
+        this.sent = meterRegistry.counter("earthquake.sse.events", "outcome", "sent");
+        this.dropped = meterRegistry.counter("earthquake.sse.events", "outcome", "dropped");
+        this.slowDisconnects = meterRegistry.counter("earthquake.sse.disconnects", "reason", "slow");
+        this.rejected = meterRegistry.counter("earthquake.sse.disconnects", "reason", "rejected");
+        meterRegistry.gauge("earthquake.sse.subscribers", subscribers, Set::size);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeat != null) {
+            heartbeat.shutdown();
+        }
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        for (Subscriber subscriber : List.copyOf(subscribers)) {
+            subscriber.emitter.complete();
+            remove(subscriber);
+        }
+    }
+
+    /**
+     * Register a new subscriber
+     * @param filter magnitude and bounding box the subscriber is interested in
+     * @return emitter to return from the controller
+     * @throws IllegalStateException when max-subscribers are already connected
+     */
+    public SseEmitter subscribe(Filter filter) {
+        return register(new SseEmitter(timeout.toMillis()), filter);
+    }
+
+    SseEmitter register(SseEmitter emitter, Filter filter) {
+        if (!reserveSlot()) {
+            rejected.increment();
+            throw new IllegalStateException("Too many subscribers");
+        }
+        Subscriber subscriber = new Subscriber(emitter, filter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    private boolean reserveSlot() {
+        int taken;
+        do {
+            taken = slots.get();
+            if (taken >= maxSubscribers) {
+                return false;
+            }
+        } while (!slots.compareAndSet(taken, taken + 1));
+        return true;
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        // completion, timeout, error and a failed send may all remove the same subscriber
+        if (subscribers.remove(subscriber)) {
+            slots.decrementAndGet();
+        }
+        subscriber.queue.clear();
+    }
+
+    /**
+     * Publish the significant earthquakes of a write once its transaction commits, or right away
+     * when there is no transaction, so subscribers never see a write that is rolled back
+     * @param written processed earthquakes just written
+     */
+    public void publishAfterCommit(List<? extends ProcessedEarthquake> written) {
+        List<ProcessedEarthquake> significant = new ArrayList<>();
+        for (ProcessedEarthquake earthquake : written) {
+            if (Boolean.TRUE.equals(earthquake.getIsSignificant())) {
+                significant.add(earthquake);
+            }
+        }
+        if (significant.isEmpty() || subscribers.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(significant);
+                }
+            });
+        } else {
+            publish(significant);
+        }
+    }
+
+    /**
+     * Queue significant earthquakes for every subscriber whose filter matches, without blocking
+     * @param significant processed earthquakes with isSignificant = true
+     */
+    void publish(List<ProcessedEarthquake> significant) {
+        for (ProcessedEarthquake earthquake : significant) {
+            if (!firstPublication(earthquake)) {
+                unchanged.increment();
+                continue;
+            }
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(earthquake);
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize " + earthquake.getEarthquakeGlobalId() + " for subscribers", e);
+                continue;
+            }
+            published.increment();
+
+            Message message = new Message(earthquake.getEarthquakeGlobalId(), json);
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.filter.matches(earthquake)) {
+                    offer(subscriber, message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remember an earthquake as published, unless it already was with the same or a newer source
+     * updated time, as when the job re-writes an event that did not change
+     * @param earthquake significant earthquake about to be published
+     * @return true when it should be published
+     */
+    private boolean firstPublication(ProcessedEarthquake earthquake) {
+        LocalDateTime updated = earthquake.getSourceUpdated();
+        synchronized (recent) {
+            LocalDateTime previous = recent.get(earthquake.getEarthquakeGlobalId());
+            if (previous != null && updated != null && !updated.isAfter(previous)) {
+                return false;
+            }
+            if (updated != null) {
+                recent.put(earthquake.getEarthquakeGlobalId(), updated);
+            }
+            return true;
+        }
+    }
+
+    private void offer(Subscriber subscriber, Message message) {
+        while (!subscriber.queue.offer(message)) {
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                slowDisconnects.increment();
+                log.info("Disconnecting a slow significant earthquake subscriber");
+                remove(subscriber);
+                // completing sends on the emitter, so leave it to a sender thread
+                execute(subscriber.emitter::complete);
+                return;
+            }
+            if (subscriber.queue.poll() != null) {
+                dropped.increment();
+            }
+        }
+        schedule(subscriber);
+    }
+
+    /**
+     * Send a comment to idle subscribers so dead connections are noticed and proxies keep them open
+     */
+    void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.isEmpty() && subscriber.queue.offer(Message.HEARTBEAT)) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            execute(() -> drain(subscriber));
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Sender pool is shut down", e);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Message message;
+            while (!subscriber.closed && (message = subscriber.queue.poll()) != null) {
+                if (message == Message.HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(message.id())
+                            .name(EVENT_NAME)
+                            .data(message.json(), MediaType.APPLICATION_JSON));
+                    sent.increment();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // client went away or the emitter already completed
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // an offer may have landed after the last poll but before draining was cleared
+        if (!subscriber.closed && !subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Number of connected subscribers
+     * @return subscriber count
+     */
+    public int subscriberCount() {
+        return slots.get();
+    }
+
+    /**
+     * What a subscriber wants pushed, null bounds are open
+     * @param minMagnitude minimum magnitude
+     * @param minLatitude southern edge of the bounding box
+     * @param maxLatitude northern edge of the bounding box
+     * @param minLongitude western edge of the bounding box
+     * @param maxLongitude eastern edge of the bounding box
+     */
+    public record Filter(Double minMagnitude, Double minLatitude, Double maxLatitude,
+                         Double minLongitude, Double maxLongitude) {
+
+        boolean matches(ProcessedEarthquake earthquake) {
+            return atLeast(earthquake.getMagnitude(), minMagnitude)
+                    && atLeast(earthquake.getLatitude(), minLatitude)
+                    && atMost(earthquake.getLatitude(), maxLatitude)
+                    && atLeast(earthquake.getLongitude(), minLongitude)
+                    && atMost(earthquake.getLongitude(), maxLongitude);
+        }
+
+        private static boolean atLeast(Double value, Double bound) {
+            return bound == null || (value != null && value >= bound);
+        }
+
+        private static boolean atMost(Double value, Double bound) {
+            return bound == null || (value != null && value <= bound);
+        }
+    }
+
+    /**
+     * What happens to a subscriber whose buffer is full
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST("drop-oldest"),
+        DISCONNECT("disconnect");
+
+        private final String value;
+
+        OverflowPolicy(String value) {
+            this.value = value;
+        }
+
+        public static OverflowPolicy fromValue(String value) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.value.equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown overflow policy: " + value);
+        }
+    }
+
+    private record Message(String id, String json) {
+        static final Message HEARTBEAT = new Message(null, null);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<Message> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Filter filter, BlockingQueue<Message> queue) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.queue = queue;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.earthquake_processor_api.app.util;
+
+/**
+ * Great circle helpers on a spherical earth.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    /** Length of one degree of latitude. */
+    public static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Haversine distance between two points
+     * @param lat1 latitude of the first point
+     * @param lng1 longitude of the first point
+     * @param lat2 latitude of the second point
+     * @param lng2 longitude of the second point
+     * @return distance in kilometers
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.earthquake_processor_api.app.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+/**
+ * Helpers for bulk loading rows with PostgreSQL COPY ... FROM STDIN (FORMAT csv).
+ */
+public final class PgCopyUtils {
+
+    private PgCopyUtils() {
+    }
+
+    /**
+     * Check whether the data source points at PostgreSQL
+     * @param dataSource data source
+     * @return true for PostgreSQL, false for anything else (e.g. H2 in tests)
+     */
+    public static boolean isPostgres(DataSource dataSource) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            return false;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Run a COPY FROM STDIN statement on the current transactional connection
+     * @param dataSource data source
+     * @param copySql COPY statement
+     * @param csv CSV rows to load
+     * @return number of rows loaded
+     * @throws SQLException on database errors
+     * @throws IOException on stream errors
+     */
+    public static long copyIn(DataSource dataSource, String copySql, CharSequence csv) throws SQLException, IOException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.unwrap(PGConnection.class)
+                    .getCopyAPI()
+                    .copyIn(copySql, new StringReader(csv.toString()));
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Append one CSV row. Nulls are written as empty unquoted fields (COPY reads them as NULL),
+     * text is always quoted so an empty string stays an empty string.
+     * @param csv rows being built
+     * @param values field values in column order
+     */
+    public static void appendRow(StringBuilder csv, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            appendField(csv, values[i]);
+        }
+        csv.append('\n');
+    }
+
+    private static void appendField(StringBuilder csv, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            csv.append(value);
+            return;
+        }
+        csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,76 @@
+package com.earthquake_processor_api.app.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.earthquake_processor_api.app.repository.EarthquakeEventPartitions;
+import com.earthquake_processor_api.app.repository.EarthquakeRequestRepository;
+
+class DropStagingPartitionsTaskletTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private EarthquakeRequestRepository requestRepository;
+    private DropStagingPartitionsTasklet tasklet;
+    private JobExecution jobExecution;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:staging;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS earthquake_events");
+        jdbcTemplate.execute("CREATE TABLE earthquake_events (id BIGINT PRIMARY KEY, earthquake_request_id BIGINT)");
+        jdbcTemplate.update("INSERT INTO earthquake_events VALUES (1, 1), (2, 1), (3, 2), (4, 3)");
+
+        requestRepository = mock(EarthquakeRequestRepository.class);
+        tasklet = new DropStagingPartitionsTasklet(new EarthquakeEventPartitions(dataSource), requestRepository,
+                Duration.ofHours(6));
+        jobExecution = new JobExecution(1L);
+    }
+
+    private RepeatStatus execute() {
+        StepExecution stepExecution = jobExecution.createStepExecution("dropStagingPartitionsStep");
+        return tasklet.execute(stepExecution.createStepContribution(), new ChunkContext(new StepContext(stepExecution)));
+    }
+
+    private List<Long> remainingRequests() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT earthquake_request_id FROM earthquake_events "
+                + "ORDER BY earthquake_request_id", Long.class);
+    }
+
+    @Test
+    void testExecute_removesClaimedAndAbandonedBatchesOnly() {
+        jobExecution.getExecutionContext().put(StagingBatches.KEY, new ArrayList<>(List.of(1L)));
+        when(requestRepository.findAbandonedIds(any())).thenReturn(List.of(3L));
+
+        assertEquals(RepeatStatus.FINISHED, execute());
+
+        // request 2 was staged while the job ran and stays for the next run
+        assertEquals(List.of(2L), remainingRequests());
+        verify(requestRepository).markProcessed(eq(List.of(1L, 3L)), any());
+    }
+
+    @Test
+    void testExecute_nothingClaimed() {
+        when(requestRepository.findAbandonedIds(any())).thenReturn(List.of());
+
+        execute();
+
+        assertEquals(List.of(1L, 2L, 3L), remainingRequests());
+        verify(requestRepository, never()).markProcessed(any(), any());
+    }
+}
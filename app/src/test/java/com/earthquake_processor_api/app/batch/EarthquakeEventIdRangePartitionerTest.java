@@ -0,0 +1,68 @@
+package com.earthquake_processor_api.app.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EarthquakeEventIdRangePartitionerTest {
+
+    private Map<String, ExecutionContext> partition(Long minId, Long maxId, int gridSize) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("SELECT MIN(id) FROM earthquake_events", Long.class)).thenReturn(minId);
+        when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM earthquake_events", Long.class)).thenReturn(maxId);
+        return new EarthquakeEventIdRangePartitioner(jdbcTemplate).partition(gridSize);
+    }
+
+    @Test
+    void testPartition_coversIdRangeWithoutGaps() {
+        Map<String, ExecutionContext> partitions = partition(101L, 1100L, 4);
+
+        assertEquals(4, partitions.size());
+        long expectedStart = 101;
+        for (ExecutionContext context : partitions.values()) {
+            assertEquals(expectedStart, context.getLong("minId"));
+            assertTrue(context.getLong("maxId") >= context.getLong("minId"));
+            expectedStart = context.getLong("maxId") + 1;
+        }
+        assertEquals(1101, expectedStart);
+    }
+
+    @Test
+    void testPartition_fewerIdsThanGridSize() {
+        Map<String, ExecutionContext> partitions = partition(5L, 6L, 8);
+
+        assertEquals(2, partitions.size());
+        assertEquals(5, partitions.get("partition0").getLong("maxId"));
+        assertEquals(6, partitions.get("partition1").getLong("minId"));
+    }
+
+    @Test
+    void testPartition_emptyTable() {
+        Map<String, ExecutionContext> partitions = partition(null, null, 4);
+
+        assertEquals(1, partitions.size());
+        ExecutionContext context = partitions.get("partition0");
+        assertTrue(context.getLong("minId") > context.getLong("maxId"));
+    }
+
+    @Test
+    void testPartition_limitedToClaimedStagingBatches() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("SELECT MIN(id) FROM earthquake_events WHERE earthquake_request_id IN (3, 7)", Long.class))
+                .thenReturn(10L);
+        when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM earthquake_events WHERE earthquake_request_id IN (3, 7)", Long.class))
+                .thenReturn(13L);
+
+        Map<String, ExecutionContext> partitions = new EarthquakeEventIdRangePartitioner(jdbcTemplate, List.of(3L, 7L)).partition(2);
+
+        assertEquals(2, partitions.size());
+        assertEquals(10, partitions.get("partition0").getLong("minId"));
+        assertEquals(13, partitions.get("partition1").getLong("maxId"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.earthquake_processor_api.app.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEventRow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EarthquakeEventReaderTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private EarthquakeBatchConfig batchConfig;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:reader;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE earthquake_events (id BIGINT PRIMARY KEY, earthquake_global_id VARCHAR(255), "
+                + "magnitude DOUBLE PRECISION, mag_type VARCHAR(50), place VARCHAR(255), time TIMESTAMP, updated TIMESTAMP, "
+                + "tsunami BOOLEAN, status VARCHAR(50), alert VARCHAR(50), longitude DOUBLE PRECISION, "
+                + "latitude DOUBLE PRECISION, depth DOUBLE PRECISION, earthquake_request_id BIGINT)");
+        jdbcTemplate.update("INSERT INTO earthquake_events (id, earthquake_global_id, magnitude, mag_type, place, time, "
+                + "updated, tsunami, alert, longitude, latitude, depth, earthquake_request_id) VALUES (3, 'us3', 5.2, 'mww', "
+                + "'10 km N of Lima, Peru', TIMESTAMP '2025-01-02 03:04:05', TIMESTAMP '2025-01-02 04:00:00', TRUE, 'green', "
+                + "-77.0, -12.0, 35.5, 2)");
+        for (long id : new long[] {1, 2, 4}) {
+            jdbcTemplate.update("INSERT INTO earthquake_events (id, earthquake_global_id, time, earthquake_request_id) "
+                    + "VALUES (?, ?, TIMESTAMP '2025-01-01 00:00:00', 1)", id, "us" + id);
+        }
+
+        batchConfig = new EarthquakeBatchConfig(null, null, dataSource, new SimpleMeterRegistry(), "jpa", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE earthquake_events");
+    }
+
+    private static List<EarthquakeEventRow> readAll(JdbcCursorItemReader<EarthquakeEventRow> reader) throws Exception {
+        List<EarthquakeEventRow> rows = new ArrayList<>();
+        reader.open(new ExecutionContext());
+        try {
+            for (EarthquakeEventRow row = reader.read(); row != null; row = reader.read()) {
+                rows.add(row);
+            }
+        } finally {
+            reader.close();
+        }
+        return rows;
+    }
+
+    @Test
+    void testReader_readsEveryRowInIdOrder() throws Exception {
+        List<EarthquakeEventRow> rows = readAll(batchConfig.earthquakeEventReader(null));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), rows.stream().map(EarthquakeEventRow::id).toList());
+        EarthquakeEventRow row = rows.get(2);
+        assertEquals("us3", row.earthquakeGlobalId());
+        assertEquals(5.2, row.magnitude());
+        assertEquals("mww", row.magType());
+        assertEquals("10 km N of Lima, Peru", row.place());
+        assertEquals(LocalDateTime.of(2025, 1, 2, 3, 4, 5), row.time());
+        assertEquals(LocalDateTime.of(2025, 1, 2, 4, 0), row.updated());
+        assertTrue(row.tsunami());
+        assertEquals("green", row.alert());
+        assertEquals(-77.0, row.longitude());
+        assertEquals(-12.0, row.latitude());
+        assertEquals(35.5, row.depth());
+    }
+
+    @Test
+    void testReader_keepsNullColumnsNull() throws Exception {
+        EarthquakeEventRow row = readAll(batchConfig.earthquakeEventReader(null)).get(0);
+
+        assertNull(row.magnitude());
+        assertNull(row.updated());
+        assertNull(row.tsunami());
+        assertNull(row.latitude());
+    }
+
+    @Test
+    void testPartitionReader_readsOnlyItsIdRange() throws Exception {
+        List<EarthquakeEventRow> rows = readAll(batchConfig.earthquakeEventPartitionReader(null, 2L, 3L));
+
+        assertEquals(List.of(2L, 3L), rows.stream().map(EarthquakeEventRow::id).toList());
+    }
+
+    @Test
+    void testReader_readsOnlyClaimedStagingBatches() throws Exception {
+        assertEquals(List.of(3L), readAll(batchConfig.earthquakeEventReader(List.of(2L))).stream()
+                .map(EarthquakeEventRow::id).toList());
+        assertEquals(List.of(), readAll(batchConfig.earthquakeEventReader(List.of())));
+    }
+
+    @Test
+    void testPartitionReader_readsOnlyClaimedStagingBatchesInItsIdRange() throws Exception {
+        List<EarthquakeEventRow> rows = readAll(batchConfig.earthquakeEventPartitionReader(List.of(1L), 2L, 4L));
+
+        assertEquals(List.of(2L, 4L), rows.stream().map(EarthquakeEventRow::id).toList());
+    }
+}
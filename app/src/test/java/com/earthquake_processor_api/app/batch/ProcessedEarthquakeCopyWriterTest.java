@@ -0,0 +1,86 @@
+package com.earthquake_processor_api.app.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.util.PgCopyStub;
+
+class ProcessedEarthquakeCopyWriterTest {
+
+    private PgCopyStub copy;
+    private ProcessedEarthquakeCopyWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        copy = new PgCopyStub();
+        writer = new ProcessedEarthquakeCopyWriter(copy.dataSource());
+    }
+
+    @Test
+    void testWrite_oneCopyPerChunkWithEveryColumn() throws Exception {
+        ProcessedEarthquake processed = new ProcessedEarthquake();
+        processed.setEarthquakeGlobalId("us1");
+        processed.setMagnitude(4.5);
+        processed.setMagType("mb");
+        processed.setPlace("16 km S of Volcano, Hawaii");
+        processed.setEventTime(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 123_000_000));
+        processed.setLatitude(19.29);
+        processed.setLongitude(-155.24);
+        processed.setDepth(10.0);
+        processed.setTsunami(false);
+        processed.setAlertLevel("green");
+        processed.setIsSignificant(true);
+        processed.setNearestCity("Volcano, Hawaii");
+        processed.setDistanceToNearestCityKm(16.0);
+        processed.setPopulation100km(250000.0);
+        processed.setAvgAge100km(38.5);
+        processed.setPercentMale100km(49.0);
+        processed.setPercentFemale100km(51.0);
+        processed.setProcessedAt(LocalDateTime.of(2025, 1, 3, 0, 0));
+        processed.setSourceUpdated(LocalDateTime.of(2025, 1, 2, 4, 0, 30));
+
+        writer.write(new Chunk<>(List.of(processed, new ProcessedEarthquake())));
+
+        assertEquals(List.of(ProcessedEarthquakeCopyWriter.COPY_SQL), copy.statements());
+        List<List<String>> rows = PgCopyStub.parse(copy.inputs().get(0));
+        assertEquals(2, rows.size());
+        assertEquals(Arrays.asList("us1", "4.5", "mb", "16 km S of Volcano, Hawaii", "2025-01-02T03:04:05.123",
+                "19.29", "-155.24", "10.0", "false", "green", "true", "Volcano, Hawaii", "16.0", "250000.0", "38.5",
+                "49.0", "51.0", "2025-01-03T00:00", "2025-01-02T04:00:30"), rows.get(0));
+    }
+
+    @Test
+    void testWrite_textWithControlCharactersRoundTrips() throws Exception {
+        String place = "Line one\nline \"two\"\twith tab, comma and C:\\path\\";
+        ProcessedEarthquake processed = new ProcessedEarthquake();
+        processed.setEarthquakeGlobalId("us1");
+        processed.setPlace(place);
+        processed.setNearestCity("");
+
+        writer.write(new Chunk<>(List.of(processed)));
+
+        List<String> row = PgCopyStub.parse(copy.inputs().get(0)).get(0);
+        assertEquals(place, row.get(3));
+        // an empty string stays distinguishable from NULL
+        assertEquals("", row.get(11));
+        assertNull(row.get(1));
+        assertNull(row.get(4));
+        assertNull(row.get(18));
+    }
+
+    @Test
+    void testWrite_emptyChunkSkipsCopy() throws Exception {
+        writer.write(new Chunk<>());
+
+        verifyNoInteractions(copy.copyManager());
+    }
+}
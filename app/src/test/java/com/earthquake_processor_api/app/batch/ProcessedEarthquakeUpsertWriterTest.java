@@ -0,0 +1,73 @@
+package com.earthquake_processor_api.app.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+
+class ProcessedEarthquakeUpsertWriterTest {
+
+    private static ProcessedEarthquake processed(String globalId, double magnitude, LocalDateTime sourceUpdated) {
+        ProcessedEarthquake processed = new ProcessedEarthquake();
+        processed.setEarthquakeGlobalId(globalId);
+        processed.setMagnitude(magnitude);
+        processed.setSourceUpdated(sourceUpdated);
+        return processed;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWrite_batchesOneUpsertPerGlobalId() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        LocalDateTime updated = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+
+        new ProcessedEarthquakeUpsertWriter(jdbcTemplate).write(new Chunk<>(List.of(
+                processed("us1", 4.5, updated),
+                processed("us2", 5.0, null),
+                processed("us1", 4.7, updated.plusMinutes(5)),
+                processed("us1", 4.6, updated.plusMinutes(1)))));
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(ProcessedEarthquakeUpsertWriter.UPSERT_SQL), captor.capture(),
+                eq(ProcessedEarthquakeUpsertWriter.ARG_TYPES));
+
+        List<Object[]> rows = captor.getValue();
+        assertEquals(2, rows.size());
+        assertEquals("us1", rows.get(0)[0]);
+        assertEquals(4.7, rows.get(0)[1]);
+        assertEquals(Timestamp.valueOf(updated.plusMinutes(5)), rows.get(0)[18]);
+        assertEquals("us2", rows.get(1)[0]);
+        assertNull(rows.get(1)[18]);
+        assertEquals(ProcessedEarthquakeUpsertWriter.ARG_TYPES.length, rows.get(0).length);
+    }
+
+    @Test
+    void testWrite_emptyChunkSkipsDatabase() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+        new ProcessedEarthquakeUpsertWriter(jdbcTemplate).write(new Chunk<>());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testUpsertSql_onlyOverwritesOlderRows() {
+        // a row of the same version is only rewritten to repair a failed population lookup
+        assertTrue(ProcessedEarthquakeUpsertWriter.UPSERT_SQL.contains("ON CONFLICT (earthquake_global_id) DO UPDATE"));
+        assertTrue(ProcessedEarthquakeUpsertWriter.UPSERT_SQL.endsWith(
+                "WHERE processed_earthquakes.source_updated IS NULL "
+                + "OR processed_earthquakes.source_updated < EXCLUDED.source_updated "
+                + "OR (processed_earthquakes.source_updated = EXCLUDED.source_updated "
+                + "AND processed_earthquakes.population_100km IS NULL AND EXCLUDED.population_100km IS NOT NULL)"));
+    }
+}
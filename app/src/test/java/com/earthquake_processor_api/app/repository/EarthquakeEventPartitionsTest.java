@@ -0,0 +1,183 @@
+package com.earthquake_processor_api.app.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class EarthquakeEventPartitionsTest {
+
+    private static final Pattern PARTITION = Pattern.compile("earthquake_events_r\\d+");
+
+    // partition name -> whether a detach is pending
+    private final Map<String, Boolean> attached = new LinkedHashMap<>();
+    private final List<String> executed = new ArrayList<>();
+
+    // a JdbcCursorItemReader of earthquakeJob holding ACCESS SHARE on earthquake_events
+    private boolean cursorOpen;
+
+    private DataSource dataSource;
+    private EarthquakeEventPartitions partitions;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> connection());
+        partitions = new EarthquakeEventPartitions(dataSource);
+    }
+
+    /**
+     * Connection that applies the catalog changes of the partition DDL and fails like a lock
+     * timeout when a statement needs a lock on earthquake_events that conflicts with the open cursor
+     */
+    private Connection connection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        AtomicBoolean autoCommit = new AtomicBoolean(true);
+
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(connection.getAutoCommit()).thenAnswer(invocation -> autoCommit.get());
+        doAnswer(invocation -> {
+            autoCommit.set(invocation.getArgument(0));
+            return null;
+        }).when(connection).setAutoCommit(anyBoolean());
+        when(connection.createStatement()).thenAnswer(invocation -> {
+            Statement statement = mock(Statement.class);
+            when(statement.execute(anyString())).thenAnswer(call -> {
+                execute(call.getArgument(0), autoCommit.get());
+                return false;
+            });
+            when(statement.executeQuery(anyString())).thenAnswer(call -> query(call.getArgument(0)));
+            return statement;
+        });
+        return connection;
+    }
+
+    private void execute(String sql, boolean autoCommit) throws SQLException {
+        Matcher matcher = PARTITION.matcher(sql);
+        String partition = matcher.find() ? matcher.group() : null;
+
+        // lock taken on earthquake_events, per the PostgreSQL documentation of each command
+        boolean accessExclusive = sql.contains("PARTITION OF earthquake_events")
+                || (sql.contains("DETACH PARTITION") && !sql.endsWith("CONCURRENTLY") && !sql.endsWith("FINALIZE"))
+                || (sql.startsWith("DROP TABLE") && attached.containsKey(partition));
+        if (accessExclusive && cursorOpen) {
+            throw new SQLException("canceling statement due to lock timeout", "55P03");
+        }
+        if (sql.endsWith("CONCURRENTLY") && !autoCommit) {
+            throw new SQLException("ALTER TABLE ... DETACH CONCURRENTLY cannot run inside a transaction block", "25001");
+        }
+
+        executed.add(sql);
+        if (sql.contains("ATTACH PARTITION") || sql.contains("PARTITION OF earthquake_events")) {
+            attached.put(partition, false);
+        } else if (sql.contains("DETACH PARTITION")) {
+            attached.remove(partition);
+        }
+    }
+
+    private ResultSet query(String sql) throws SQLException {
+        if (sql.equals(EarthquakeEventPartitions.PARTITIONED_SQL)) {
+            return resultSet(List.of(1L));
+        }
+        Matcher matcher = PARTITION.matcher(sql);
+        assertTrue(matcher.find() && sql.contains("pg_inherits"), sql);
+        Boolean detachPending = attached.get(matcher.group());
+        return resultSet(detachPending == null ? List.of() : List.of(detachPending));
+    }
+
+    private static ResultSet resultSet(List<Object> values) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        Iterator<Object> rows = values.iterator();
+        Object[] current = new Object[1];
+
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.next()).thenAnswer(invocation -> {
+            if (!rows.hasNext()) {
+                return false;
+            }
+            current[0] = rows.next();
+            return true;
+        });
+        when(resultSet.getLong(1)).thenAnswer(invocation -> current[0]);
+        when(resultSet.getBoolean(1)).thenAnswer(invocation -> current[0]);
+        return resultSet;
+    }
+
+    @Test
+    void testEnsurePartitions_stagesWhileCursorIsOpenOnParent() {
+        cursorOpen = true;
+
+        // the previous CREATE TABLE ... PARTITION OF waits for the cursor
+        assertThrows(DataAccessException.class, () -> new JdbcTemplate(dataSource).execute(
+                "CREATE TABLE earthquake_events_r4 PARTITION OF earthquake_events FOR VALUES IN (4)"));
+
+        partitions.ensurePartitions(List.of(5L));
+
+        assertEquals(Map.of("earthquake_events_r5", false), attached);
+        assertEquals(List.of(
+                "SELECT pg_advisory_xact_lock(5)",
+                "CREATE TABLE IF NOT EXISTS earthquake_events_r5 (LIKE earthquake_events INCLUDING DEFAULTS)",
+                "ALTER TABLE earthquake_events ATTACH PARTITION earthquake_events_r5 FOR VALUES IN (5)"), executed);
+    }
+
+    @Test
+    void testEnsurePartitions_skipsAttachedPartitions() {
+        attached.put("earthquake_events_r5", false);
+
+        partitions.ensurePartitions(List.of(5L));
+        partitions.ensurePartitions(List.of(5L));
+
+        assertEquals(List.of("SELECT pg_advisory_xact_lock(5)"), executed);
+    }
+
+    @Test
+    void testDrop_detachesConcurrentlyWhileCursorIsOpenOnParent() {
+        attached.put("earthquake_events_r5", false);
+        cursorOpen = true;
+
+        partitions.drop(5L);
+
+        assertTrue(attached.isEmpty());
+        assertEquals(List.of(
+                "ALTER TABLE earthquake_events DETACH PARTITION earthquake_events_r5 CONCURRENTLY",
+                "DROP TABLE IF EXISTS earthquake_events_r5"), executed);
+    }
+
+    @Test
+    void testDrop_finalizesPendingDetach() {
+        attached.put("earthquake_events_r5", true);
+
+        partitions.drop(5L);
+        partitions.drop(5L);
+
+        assertEquals(List.of(
+                "ALTER TABLE earthquake_events DETACH PARTITION earthquake_events_r5 FINALIZE",
+                "DROP TABLE IF EXISTS earthquake_events_r5",
+                "DROP TABLE IF EXISTS earthquake_events_r5"), executed);
+    }
+}
@@ -0,0 +1,86 @@
+package com.earthquake_processor_api.app.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.Reader;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.EarthquakeRequest;
+import com.earthquake_processor_api.app.util.PgCopyStub;
+
+class EarthquakeEventRepositoryCustomImplTest {
+
+    private PgCopyStub copy;
+    private EarthquakeEventPartitions partitions;
+    private EarthquakeEventRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        copy = new PgCopyStub();
+        partitions = mock(EarthquakeEventPartitions.class);
+        repository = new EarthquakeEventRepositoryCustomImpl(copy.dataSource(), partitions, "copy");
+    }
+
+    @Test
+    void testSaveBatch_copiesEventsIntoTheirRequestPartition() {
+        EarthquakeEvent event = EarthquakeEvent.builder()
+                .earthquakeGlobalId("hv1")
+                .magnitude(2.1)
+                .magType("md")
+                .place("5 km SW of Volcano, Hawaii")
+                .time(Timestamp.valueOf("2025-01-02 03:04:05"))
+                .updated(Timestamp.valueOf("2025-01-02 03:10:00.5"))
+                .tsunami(true)
+                .status("reviewed")
+                .significance(68)
+                .network("hv")
+                .code("1")
+                .types(",origin,phase-data,")
+                .longitude(-155.26)
+                .latitude(19.40)
+                .depth(1.5)
+                .url("https://earthquake.usgs.gov/earthquakes/eventpage/hv1")
+                .title("M 2.1 - 5 km SW of Volcano, Hawaii")
+                .request(EarthquakeRequest.builder().id(7L).build())
+                .build();
+
+        repository.saveBatch(List.of(event));
+
+        verify(partitions).ensurePartitions(Set.of(7L));
+        assertEquals(List.of(EarthquakeEventRepositoryCustomImpl.COPY_SQL), copy.statements());
+        List<List<String>> rows = PgCopyStub.parse(copy.inputs().get(0));
+        assertEquals(List.of(Arrays.asList("hv1", "2.1", "md", "5 km SW of Volcano, Hawaii", "2025-01-02 03:04:05.0",
+                "2025-01-02 03:10:00.5", "true", "reviewed", null, "68", "hv", "1", ",origin,phase-data,", "-155.26",
+                "19.4", "1.5", "https://earthquake.usgs.gov/earthquakes/eventpage/hv1", null,
+                "M 2.1 - 5 km SW of Volcano, Hawaii", "7")), rows);
+    }
+
+    @Test
+    void testSaveBatch_textWithControlCharactersRoundTrips() {
+        String title = "M 4.0 -\t\"Offshore\"\r\nC:\\quake\\";
+        repository.saveBatch(List.of(EarthquakeEvent.builder().earthquakeGlobalId("us1").title(title).build()));
+
+        List<String> row = PgCopyStub.parse(copy.inputs().get(0)).get(0);
+        assertEquals(title, row.get(18));
+        assertNull(row.get(19));
+    }
+
+    @Test
+    void testSaveBatch_copyFailureIsADataAccessException() throws Exception {
+        when(copy.copyManager().copyIn(anyString(), any(Reader.class))).thenThrow(new SQLException("bad row"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> repository.saveBatch(
+                List.of(EarthquakeEvent.builder().earthquakeGlobalId("us1").build())));
+    }
+}
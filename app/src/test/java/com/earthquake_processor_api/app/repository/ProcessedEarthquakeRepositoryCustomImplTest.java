@@ -0,0 +1,42 @@
+package com.earthquake_processor_api.app.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+class ProcessedEarthquakeRepositoryCustomImplTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSeekAfter_boundsEventTimeNextToTheTieBreak() {
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Path<LocalDateTime> eventTime = mock(Path.class);
+        Path<Long> id = mock(Path.class);
+        LocalDateTime after = LocalDateTime.of(2025, 1, 6, 10, 0);
+
+        Predicate bound = mock(Predicate.class);
+        Predicate earlier = mock(Predicate.class);
+        Predicate sameTime = mock(Predicate.class);
+        Predicate lowerId = mock(Predicate.class);
+        Predicate tieBreak = mock(Predicate.class);
+        Predicate afterRow = mock(Predicate.class);
+        Predicate seek = mock(Predicate.class);
+        when(cb.lessThanOrEqualTo(eventTime, after)).thenReturn(bound);
+        when(cb.lessThan(eventTime, after)).thenReturn(earlier);
+        when(cb.equal(eventTime, after)).thenReturn(sameTime);
+        when(cb.lessThan(id, 42L)).thenReturn(lowerId);
+        when(cb.and(sameTime, lowerId)).thenReturn(tieBreak);
+        when(cb.or(earlier, tieBreak)).thenReturn(afterRow);
+        when(cb.and(bound, afterRow)).thenReturn(seek);
+
+        // event_time <= :t AND (event_time < :t OR (event_time = :t AND id < :id))
+        assertSame(seek, ProcessedEarthquakeRepositoryCustomImpl.seekAfter(cb, eventTime, id, after, 42L));
+    }
+}
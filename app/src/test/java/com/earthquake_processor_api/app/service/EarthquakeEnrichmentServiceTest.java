@@ -0,0 +1,71 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEventRow;
+import com.earthquake_processor_api.app.entity.NearestCity;
+import com.earthquake_processor_api.app.entity.PopulationDemographics;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EarthquakeEnrichmentServiceTest {
+
+    private PopulationService populationService;
+    private ReverseGeocodingService reverseGeocodingService;
+    private EarthquakeEnrichmentService enrichmentService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        populationService = mock(PopulationService.class);
+        reverseGeocodingService = mock(ReverseGeocodingService.class);
+        when(populationService.fetchPopulation(anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(PopulationDemographics.builder().totalPopulation(1000.0).build());
+        when(reverseGeocodingService.nearestCity(anyDouble(), anyDouble())).thenReturn(Optional.of(
+                NearestCity.builder().name("Hilo").countryCode("US").admin1Code("HI").distanceKm(42.0).build()));
+
+        enrichmentService = new EarthquakeEnrichmentService(populationService,
+                new EarthquakeService(null, null, null, null, meterRegistry), reverseGeocodingService, meterRegistry);
+    }
+
+    private static EarthquakeEventRow row(String place) {
+        return new EarthquakeEventRow(1, "hv1", 4.2, "ml", place, null, null, false, null, -155.24, 19.29, 5.0);
+    }
+
+    @Test
+    void testEnrich_coordinatesTakePrecedence() throws Exception {
+        ProcessedEarthquake processed = enrichmentService.enrich(row("5 km SW of Volcano, Hawaii"));
+
+        assertEquals("Hilo, HI", processed.getNearestCity());
+        assertEquals(42.0, processed.getDistanceToNearestCityKm());
+        verify(reverseGeocodingService).nearestCity(19.29, -155.24);
+    }
+
+    @Test
+    void testEnrich_fallsBackToPlaceTextWithoutCities() throws Exception {
+        when(reverseGeocodingService.nearestCity(anyDouble(), anyDouble())).thenReturn(Optional.empty());
+
+        ProcessedEarthquake processed = enrichmentService.enrich(row("Hawaii region"));
+
+        assertEquals("Hawaii region", processed.getNearestCity());
+        assertNull(processed.getDistanceToNearestCityKm());
+    }
+
+    @Test
+    void testEnrich_fallsBackToPlaceDistanceWithoutCities() throws Exception {
+        when(reverseGeocodingService.nearestCity(anyDouble(), anyDouble())).thenReturn(Optional.empty());
+
+        ProcessedEarthquake processed = enrichmentService.enrich(row("5 km SW of Volcano, Hawaii"));
+
+        assertEquals("Volcano, Hawaii", processed.getNearestCity());
+        assertEquals(5.0, processed.getDistanceToNearestCityKm());
+    }
+}
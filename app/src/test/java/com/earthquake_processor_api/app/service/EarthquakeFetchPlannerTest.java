@@ -0,0 +1,161 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.EarthquakeRequest;
+import com.earthquake_processor_api.app.entity.StagingSummary;
+
+class EarthquakeFetchPlannerTest {
+
+    private EarthquakeRestService restService;
+    private EarthquakeService earthquakeService;
+    private EarthquakeFetchPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        restService = mock(EarthquakeRestService.class);
+        earthquakeService = mock(EarthquakeService.class);
+        planner = new EarthquakeFetchPlanner(restService, earthquakeService, 20000, Duration.ofHours(1), 4);
+
+        // 1000 events per day
+        when(restService.countEarthquakes(any())).thenAnswer(invocation -> {
+            EarthquakeRequest request = invocation.getArgument(0);
+            Duration length = Duration.between(LocalDateTime.parse(request.getStarttime()), LocalDateTime.parse(request.getEndtime()));
+            return length.toHours() * 1000 / 24;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        planner.shutdown();
+    }
+
+    private static EarthquakeRequest range(String starttime, String endtime) {
+        return EarthquakeRequest.builder().starttime(starttime).endtime(endtime).minmagnitude("4.5").build();
+    }
+
+    @Test
+    void testPlanWindows_splitsUntilUnderCap() {
+        List<EarthquakeFetchPlanner.Window> windows = planner.planWindows(range("2025-01-01", "2025-03-02"));
+
+        assertEquals(4, windows.size());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), windows.get(0).start());
+        assertEquals(LocalDateTime.of(2025, 1, 16, 0, 0), windows.get(0).end());
+        assertEquals(LocalDateTime.of(2025, 3, 2, 0, 0), windows.get(3).end());
+        for (int i = 1; i < windows.size(); i++) {
+            assertEquals(windows.get(i - 1).end(), windows.get(i).start());
+        }
+    }
+
+    @Test
+    void testPlanWindows_offsetTimesAreConvertedToUtc() {
+        List<EarthquakeFetchPlanner.Window> windows = planner.planWindows(
+                range("2025-01-01T00:00:00Z", "2025-01-02T02:00:00+02:00"));
+
+        assertEquals(List.of(new EarthquakeFetchPlanner.Window(
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 2, 0, 0))), windows);
+    }
+
+    @Test
+    void testValidateRange_rejectsInvalidTimes() {
+        planner.validateRange(range("2025-01-01", "2025-01-02T00:00:00.000Z"));
+
+        assertThrows(IllegalArgumentException.class, () -> planner.validateRange(range("yesterday", "2025-01-02")));
+        assertThrows(IllegalArgumentException.class, () -> planner.validateRange(range("2025-01-02", "2025-01-01")));
+        verifyNoInteractions(restService);
+    }
+
+    @Test
+    void testPlanWindows_smallRangeIsOneWindow() {
+        List<EarthquakeFetchPlanner.Window> windows = planner.planWindows(range("2025-01-01T00:00:00", "2025-01-02T00:00:00"));
+
+        assertEquals(1, windows.size());
+        verify(restService, times(1)).countEarthquakes(any());
+    }
+
+    @Test
+    void testPlanWindows_stopsSplittingAtMinWindow() {
+        planner.shutdown();
+        planner = new EarthquakeFetchPlanner(restService, earthquakeService, 10, Duration.ofDays(10), 4);
+
+        List<EarthquakeFetchPlanner.Window> windows = planner.planWindows(range("2025-01-01", "2025-01-31"));
+
+        assertEquals(2, windows.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStageRange_recordsEachWindowAndDeduplicates() {
+        when(earthquakeService.stageEarthquakes(any(EarthquakeRequest.class), any(Predicate.class), any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            EarthquakeRequest window = invocation.getArgument(0);
+            Predicate<EarthquakeEvent> filter = invocation.getArgument(1);
+
+            // every window returns its own event plus the one on the shared boundary
+            int staged = 0;
+            for (String id : List.of("own-" + window.getStarttime(), "boundary")) {
+                if (filter.test(EarthquakeEvent.builder().earthquakeGlobalId(id).build())) {
+                    staged++;
+                }
+            }
+            return StagingSummary.builder()
+                    .stagedCount(staged)
+                    .maxUpdated(Timestamp.valueOf(LocalDateTime.parse(window.getEndtime())))
+                    .build();
+        });
+
+        StagingSummary summary = planner.stageRange(range("2025-01-01", "2025-03-02"));
+
+        assertEquals(5, summary.getStagedCount());
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2025, 3, 2, 0, 0)), summary.getMaxUpdated());
+        verify(earthquakeService, times(4)).stageEarthquakes(argThat(request -> "4.5".equals(request.getMinmagnitude())),
+                any(Predicate.class), any(BooleanSupplier.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStageRange_failureStopsOtherWindowsAndWaitsForThem() {
+        CountDownLatch othersStarted = new CountDownLatch(3);
+        AtomicInteger stopped = new AtomicInteger();
+        when(earthquakeService.stageEarthquakes(any(EarthquakeRequest.class), any(Predicate.class), any(BooleanSupplier.class))).thenAnswer(invocation -> {
+            EarthquakeRequest window = invocation.getArgument(0);
+            BooleanSupplier cancelled = invocation.getArgument(2);
+
+            if (window.getStarttime().startsWith("2025-01-01")) {
+                assertTrue(othersStarted.await(5, TimeUnit.SECONDS));
+                throw new IllegalStateException("USGS returned 503");
+            }
+            // a window still staging batches, it only stops when it sees the flag
+            othersStarted.countDown();
+            while (!cancelled.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(50);
+            stopped.incrementAndGet();
+            throw new CancellationException();
+        });
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> planner.stageRange(range("2025-01-01", "2025-03-02")));
+
+        assertEquals("USGS returned 503", thrown.getMessage());
+        assertEquals(3, stopped.get());
+    }
+}
@@ -0,0 +1,161 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.earthquake_processor_api.app.entity.JobProgress;
+
+class EarthquakeJobServiceTest {
+
+    private JobLauncher jobLauncher;
+    private JobExplorer jobExplorer;
+    private JdbcTemplate jdbcTemplate;
+    private EarthquakeJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobLauncher = mock(JobLauncher.class);
+        jobExplorer = mock(JobExplorer.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        Job job = mock(Job.class);
+        when(job.getName()).thenReturn("earthquakeJob");
+        jobService = new EarthquakeJobService(jobLauncher, jobExplorer, job, jdbcTemplate, Duration.ofHours(12));
+    }
+
+    private static JobExecution execution(long id, Long stagedEvents) {
+        JobParameters params = new JobParametersBuilder()
+                .addLong("time", id)
+                .addLong(EarthquakeJobService.STAGED_EVENTS, stagedEvents, false)
+                .toJobParameters();
+        JobExecution execution = new JobExecution(new JobInstance(id, "earthquakeJob"), id, params);
+        execution.setStartTime(LocalDateTime.now().minusMinutes(5));
+        execution.setLastUpdated(LocalDateTime.now());
+        return execution;
+    }
+
+    @Test
+    void testLaunch_passesStagedEventCountAndReturnsExecutionId() throws Exception {
+        when(jobExplorer.findRunningJobExecutions("earthquakeJob")).thenReturn(Set.of());
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class))).thenReturn(250L);
+        when(jobLauncher.run(any(), any())).thenAnswer(invocation -> {
+            JobParameters params = invocation.getArgument(1);
+            return execution(7, params.getLong(EarthquakeJobService.STAGED_EVENTS));
+        });
+
+        JobProgress progress = jobService.launch();
+
+        assertEquals(7L, progress.getExecutionId());
+        assertEquals(250L, progress.getStagedEvents());
+        assertEquals("STARTING", progress.getStatus());
+    }
+
+    @Test
+    void testLaunch_rejectedWhileRunning() throws Exception {
+        when(jobExplorer.findRunningJobExecutions("earthquakeJob")).thenReturn(Set.of(execution(3, 10L)));
+
+        assertThrows(JobExecutionAlreadyRunningException.class, () -> jobService.launch());
+        verify(jobLauncher, never()).run(any(), any());
+    }
+
+    @Test
+    void testLaunch_ignoresStaleExecution() throws Exception {
+        JobExecution stale = execution(3, 10L);
+        stale.setLastUpdated(LocalDateTime.now().minusDays(2));
+        stale.createStepExecution("earthquakeStep").setLastUpdated(LocalDateTime.now().minusDays(2));
+        when(jobExplorer.findRunningJobExecutions("earthquakeJob")).thenReturn(Set.of(stale));
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class))).thenReturn(0L);
+        when(jobLauncher.run(any(), any())).thenReturn(execution(4, 0L));
+
+        assertEquals(4L, jobService.launch().getExecutionId());
+    }
+
+    @Test
+    void testLaunch_longStepWithRecentChunksIsNotStale() throws Exception {
+        // the job execution is last updated when the step starts, the step on every chunk
+        JobExecution running = execution(3, 10L);
+        running.setLastUpdated(LocalDateTime.now().minusDays(2));
+        running.createStepExecution("earthquakeStep").setLastUpdated(LocalDateTime.now().minusMinutes(1));
+        when(jobExplorer.findRunningJobExecutions("earthquakeJob")).thenReturn(Set.of(running));
+
+        assertThrows(JobExecutionAlreadyRunningException.class, () -> jobService.launch());
+        verify(jobLauncher, never()).run(any(), any());
+    }
+
+    @Test
+    void testProgress_sumsPartitionWorkersAndEstimatesEta() {
+        JobExecution execution = execution(5, 1000L);
+        execution.setStatus(BatchStatus.STARTED);
+        StepExecution claim = execution.createStepExecution("claimStagingBatchesStep");
+        claim.setStatus(BatchStatus.COMPLETED);
+        StepExecution manager = execution.createStepExecution("earthquakePartitionedStep");
+        manager.setStatus(BatchStatus.STARTED);
+        manager.setReadCount(999);
+        for (int partition = 0; partition < 2; partition++) {
+            StepExecution worker = execution.createStepExecution("earthquakeWorkerStep:partition" + partition);
+            worker.setStartTime(LocalDateTime.now().minusSeconds(10));
+            worker.setReadCount(100);
+            worker.setWriteCount(90);
+            worker.setFilterCount(5);
+            worker.setProcessSkipCount(1);
+        }
+        when(jobExplorer.getJobExecution(5L)).thenReturn(execution);
+
+        JobProgress progress = jobService.progress(5).orElseThrow();
+
+        assertEquals(200, progress.getReadCount());
+        assertEquals(190, progress.getProcessedCount());
+        assertEquals(180, progress.getWriteCount());
+        assertEquals(2, progress.getSkipCount());
+        assertEquals("earthquakePartitionedStep", progress.getCurrentStep());
+        // about 20 items per second with 800 left
+        assertEquals(20.0, progress.getItemsPerSecond(), 2.0);
+        assertTrue(progress.getEtaSeconds() >= 36 && progress.getEtaSeconds() <= 45, "eta " + progress.getEtaSeconds());
+    }
+
+    @Test
+    void testProgress_finishedRunHasNoEta() {
+        JobExecution execution = execution(6, 100L);
+        execution.setStatus(BatchStatus.COMPLETED);
+        StepExecution step = execution.createStepExecution("earthquakeStep");
+        step.setStartTime(LocalDateTime.now().minusSeconds(20));
+        step.setEndTime(step.getStartTime().plusSeconds(10));
+        step.setStatus(BatchStatus.COMPLETED);
+        step.setReadCount(100);
+        step.setWriteCount(100);
+        when(jobExplorer.getJobExecution(6L)).thenReturn(execution);
+
+        JobProgress progress = jobService.progress(6).orElseThrow();
+
+        assertEquals(10.0, progress.getItemsPerSecond(), 0.01);
+        assertNull(progress.getEtaSeconds());
+        assertNull(progress.getCurrentStep());
+    }
+
+    @Test
+    void testProgress_unknownExecution() {
+        when(jobExplorer.getJobExecution(42L)).thenReturn(null);
+
+        assertEquals(Optional.empty(), jobService.progress(42));
+    }
+}
@@ -6,23 +6,29 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class EarthquakeRestServiceTest {
 
     private RestTemplate restTemplate;
+    private SimpleMeterRegistry meterRegistry;
     private EarthquakeRestService earthquakeRestService;
 
-    private final String BASE_URL = "https://example.com/earthquakes";
+    private final String BASE_URL = "https://example.com/fdsnws/event/1/query";
 
     @BeforeEach
     void setUp() {
         restTemplate = mock(RestTemplate.class);
-        earthquakeRestService = new EarthquakeRestService(restTemplate, BASE_URL);
+        meterRegistry = new SimpleMeterRegistry();
+        earthquakeRestService = new EarthquakeRestService(restTemplate, meterRegistry, BASE_URL, "");
     }
 
     @Test
@@ -58,6 +64,16 @@ class EarthquakeRestServiceTest {
         assertEquals(BASE_URL + "?format=geojson&minmagnitude=5.0", uri);
     }
 
+    @Test
+    void testBuildUriString_withUpdatedAfter() {
+        EarthquakeRequest request = new EarthquakeRequest();
+        request.setUpdatedafter("2025-01-01T00:00:00.000");
+
+        String uri = earthquakeRestService.buildUriString(request, "geojson");
+
+        assertEquals(BASE_URL + "?format=geojson&updatedafter=2025-01-01T00:00:00.000", uri);
+    }
+
     @Test
     void testFetchEarthquakes_callsRestTemplate() {
         EarthquakeRequest request = new EarthquakeRequest();
@@ -79,5 +95,48 @@ class EarthquakeRestServiceTest {
         verify(restTemplate).exchange(captor.capture(), eq(HttpMethod.GET), isNull(), eq(String.class));
         assertTrue(captor.getValue().startsWith(BASE_URL));
     }
-}
 
+    @Test
+    void testCountEarthquakes_usesCountMethod() {
+        EarthquakeRequest request = new EarthquakeRequest();
+        request.setStarttime("2025-01-01");
+        request.setEndtime("2025-01-02");
+
+        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("1234\n");
+
+        assertEquals(1234L, earthquakeRestService.countEarthquakes(request));
+        verify(restTemplate).getForObject(
+                "https://example.com/fdsnws/event/1/count?format=text&starttime=2025-01-01&endtime=2025-01-02", String.class);
+    }
+
+    @Test
+    void testFetchEarthquakes_recordsLatencyAndPayloadSize() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{\"type\":\"FeatureCollection\"}"));
+
+        earthquakeRestService.fetchEarthquakes(new EarthquakeRequest(), "geojson");
+
+        assertEquals(1, meterRegistry.get("usgs.fetch").tag("operation", "query").tag("outcome", "success").timer().count());
+        assertEquals(28.0, meterRegistry.get("usgs.fetch.payload").summary().totalAmount());
+    }
+
+    @Test
+    void testFetchEarthquakes_recordsPayloadSizeInBytes() {
+        // 18 chars, 19 bytes in UTF-8 with the o macron
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{\"place\":\"T\u014dhoku\"}"));
+
+        earthquakeRestService.fetchEarthquakes(new EarthquakeRequest(), "geojson");
+
+        assertEquals(19.0, meterRegistry.get("usgs.fetch.payload").summary().totalAmount());
+    }
+
+    @Test
+    void testCountEarthquakes_recordsServerErrorOutcome() {
+        when(restTemplate.getForObject(anyString(), eq(String.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThrows(HttpServerErrorException.class, () -> earthquakeRestService.countEarthquakes(new EarthquakeRequest()));
+        assertEquals(1, meterRegistry.get("usgs.fetch").tag("operation", "count").tag("outcome", "server_error").timer().count());
+    }
+}
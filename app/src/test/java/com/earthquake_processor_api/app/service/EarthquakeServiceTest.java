@@ -1,15 +1,44 @@
 package com.earthquake_processor_api.app.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResponseExtractor;
 
+import com.earthquake_processor_api.app.entity.EarthquakeEvent;
+import com.earthquake_processor_api.app.entity.EarthquakeRequest;
+import com.earthquake_processor_api.app.entity.IngestionWatermark;
+import com.earthquake_processor_api.app.entity.StagingSummary;
+import com.earthquake_processor_api.app.repository.EarthquakeEventRepository;
+import com.earthquake_processor_api.app.repository.EarthquakeRequestRepository;
+import com.earthquake_processor_api.app.repository.IngestionWatermarkRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 class EarthquakeServiceTest {
 
-    private final EarthquakeService service = new EarthquakeService(null, null, null);
+    private final EarthquakeService service = new EarthquakeService(null, null, null, null, new SimpleMeterRegistry());
 
     // ======== isSignificantEarthquake Parameterized Tests ========
 
@@ -117,5 +146,166 @@ class EarthquakeServiceTest {
             assertEquals(tc.expected, result, 0.0001); // allow minor floating-point differences
         }
     }
-}
 
+    // ======== stageFeatures streaming Tests ========
+
+    private static String feature(String id, double mag, long updated) {
+        return "{\"type\":\"Feature\",\"properties\":{\"mag\":" + mag + ",\"place\":\"16 km S of Volcano, Hawaii\","
+                + "\"time\":1700000000000,\"updated\":" + updated + ",\"tsunami\":0,\"sig\":100},"
+                + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[-155.28,19.40,2.5]},\"id\":\"" + id + "\"}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<EarthquakeEvent>> stage(String json, int batchSize, int expectedSaves) throws Exception {
+        EarthquakeEventRepository repository = mock(EarthquakeEventRepository.class);
+        EarthquakeService streamingService = new EarthquakeService(null, null, repository, null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(streamingService, "ingestBatchSize", batchSize);
+
+        int staged = streamingService.stageFeatures(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new EarthquakeRequest(), event -> true)
+                .getStagedCount();
+
+        ArgumentCaptor<List<EarthquakeEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(expectedSaves)).saveBatch(captor.capture());
+        assertEquals(staged, captor.getAllValues().stream().mapToInt(List::size).sum());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void testStageFeatures_flushesInBoundedBatches() throws Exception {
+        List<String> features = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            features.add(feature("us" + i, 4.0 + i / 10.0, 1700000001000L));
+        }
+        String json = "{\"type\":\"FeatureCollection\",\"metadata\":{\"count\":5,\"title\":\"USGS\"},"
+                + "\"features\":[" + String.join(",", features) + "],\"bbox\":[-155.28,19.40,2.5,-155.28,19.40,2.5]}";
+
+        List<List<EarthquakeEvent>> batches = stage(json, 2, 3);
+
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+        EarthquakeEvent first = batches.get(0).get(0);
+        assertEquals("us0", first.getEarthquakeGlobalId());
+        assertEquals(4.0, first.getMagnitude());
+        assertEquals(19.40, first.getLatitude());
+        assertEquals(-155.28, first.getLongitude());
+        assertEquals(2.5, first.getDepth());
+        assertFalse(first.getTsunami());
+        assertEquals("us4", batches.get(2).get(0).getEarthquakeGlobalId());
+    }
+
+    @Test
+    void testStageFeatures_singleFeature() throws Exception {
+        List<List<EarthquakeEvent>> batches = stage(feature("hv1", 5.1, 1700000001000L), 500, 1);
+
+        assertEquals(1, batches.get(0).size());
+        assertEquals("hv1", batches.get(0).get(0).getEarthquakeGlobalId());
+        assertEquals(5.1, batches.get(0).get(0).getMagnitude());
+    }
+
+    @Test
+    void testStageFeatures_emptyCollection() throws Exception {
+        List<List<EarthquakeEvent>> batches = stage("{\"type\":\"FeatureCollection\",\"features\":[]}", 500, 0);
+
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void testStageFeatures_unexpectedType() {
+        EarthquakeService streamingService = new EarthquakeService(null, null, mock(EarthquakeEventRepository.class), null, new SimpleMeterRegistry());
+
+        assertThrows(IllegalArgumentException.class, () -> streamingService.stageFeatures(
+                new ByteArrayInputStream("{\"type\":\"Polygon\"}".getBytes(StandardCharsets.UTF_8)),
+                new EarthquakeRequest(), event -> true));
+    }
+
+    @Test
+    void testStageFeatures_stopsOnceCancelled() {
+        EarthquakeEventRepository repository = mock(EarthquakeEventRepository.class);
+        EarthquakeService streamingService = new EarthquakeService(null, null, repository, null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(streamingService, "ingestBatchSize", 2);
+        List<String> features = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            features.add(feature("us" + i, 4.5, 1700000001000L));
+        }
+        String json = "{\"type\":\"FeatureCollection\",\"features\":[" + String.join(",", features) + "]}";
+        AtomicBoolean cancelled = new AtomicBoolean();
+        doAnswer(invocation -> {
+            cancelled.set(true);
+            return null;
+        }).when(repository).saveBatch(anyList());
+
+        assertThrows(CancellationException.class, () -> streamingService.stageFeatures(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new EarthquakeRequest(), event -> true,
+                cancelled::get));
+        verify(repository, times(1)).saveBatch(anyList());
+    }
+
+    // ======== stageUpdatedEarthquakes watermark Tests ========
+
+    private EarthquakeRestService restServiceReturning(String json) throws Exception {
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(HttpStatus.OK);
+        when(response.getBody()).thenReturn(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        EarthquakeRestService restService = mock(EarthquakeRestService.class);
+        when(restService.streamEarthquakes(any(), any(), any())).thenAnswer(invocation ->
+                invocation.<ResponseExtractor<?>>getArgument(2).extractData(response));
+        return restService;
+    }
+
+    @Test
+    void testStageUpdatedEarthquakes_skipsSeenEventsAndAdvancesWatermark() throws Exception {
+        Timestamp watermark = new Timestamp(1700000001000L);
+        String json = "{\"type\":\"FeatureCollection\",\"features\":["
+                + feature("us1", 4.5, 1700000001000L) + ","
+                + feature("us2", 4.6, 1700000003000L) + ","
+                + feature("us3", 4.7, 1700000002000L) + "]}";
+
+        EarthquakeRestService restService = restServiceReturning(json);
+        EarthquakeEventRepository eventRepository = mock(EarthquakeEventRepository.class);
+        IngestionWatermarkRepository watermarkRepository = mock(IngestionWatermarkRepository.class);
+        when(watermarkRepository.findById(EarthquakeService.USGS_WATERMARK)).thenReturn(Optional.of(
+                IngestionWatermark.builder().name(EarthquakeService.USGS_WATERMARK).watermark(watermark).build()));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EarthquakeService incrementalService = new EarthquakeService(restService,
+                mock(EarthquakeRequestRepository.class), eventRepository, watermarkRepository, meterRegistry);
+        ReflectionTestUtils.setField(incrementalService, "ingestBatchSize", 500);
+
+        StagingSummary summary = incrementalService.stageUpdatedEarthquakes();
+
+        assertEquals(2, summary.getStagedCount());
+        assertEquals(2.0, meterRegistry.get("earthquake.staged.events").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("earthquake.staging").tag("outcome", "success").timer().count());
+        assertEquals(new Timestamp(1700000003000L), summary.getMaxUpdated());
+
+        ArgumentCaptor<EarthquakeRequest> requestCaptor = ArgumentCaptor.forClass(EarthquakeRequest.class);
+        verify(restService).streamEarthquakes(requestCaptor.capture(), any(), any());
+        assertEquals("2023-11-14T22:13:21.000", requestCaptor.getValue().getUpdatedafter());
+        // USGS would only look back 30 days without starttime
+        Instant starttime = LocalDateTime.parse(requestCaptor.getValue().getStarttime()).toInstant(ZoneOffset.UTC);
+        Instant horizon = Instant.now().minus(Duration.ofDays(365));
+        assertTrue(Duration.between(starttime, horizon).abs().compareTo(Duration.ofMinutes(1)) < 0);
+
+        ArgumentCaptor<IngestionWatermark> watermarkCaptor = ArgumentCaptor.forClass(IngestionWatermark.class);
+        verify(watermarkRepository).save(watermarkCaptor.capture());
+        assertEquals(new Timestamp(1700000003000L), watermarkCaptor.getValue().getWatermark());
+    }
+
+    @Test
+    void testStageUpdatedEarthquakes_keepsWatermarkWhenNothingChanged() throws Exception {
+        EarthquakeRestService restService = restServiceReturning("{\"type\":\"FeatureCollection\",\"features\":[]}");
+        IngestionWatermarkRepository watermarkRepository = mock(IngestionWatermarkRepository.class);
+        when(watermarkRepository.findById(EarthquakeService.USGS_WATERMARK)).thenReturn(Optional.empty());
+
+        EarthquakeService incrementalService = new EarthquakeService(restService,
+                mock(EarthquakeRequestRepository.class), mock(EarthquakeEventRepository.class), watermarkRepository,
+                new SimpleMeterRegistry());
+
+        StagingSummary summary = incrementalService.stageUpdatedEarthquakes();
+
+        assertEquals(0, summary.getStagedCount());
+        assertNull(summary.getMaxUpdated());
+        verify(watermarkRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,85 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.earthquake_processor_api.app.entity.NearbyEarthquake;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.repository.ProcessedEarthquakeRepository;
+import com.earthquake_processor_api.app.util.GeoUtils;
+
+class EarthquakeSpatialIndexTest {
+
+    private static final LocalDateTime PROCESSED_AT = LocalDateTime.of(2025, 1, 2, 3, 0);
+
+    private ProcessedEarthquakeRepository repository;
+    private EarthquakeSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProcessedEarthquakeRepository.class);
+        index = new EarthquakeSpatialIndex(repository, 1.0);
+
+        when(repository.findAll()).thenReturn(List.of(
+                processed("tokyo", 35.68, 139.69, PROCESSED_AT),
+                processed("yokohama", 35.44, 139.64, PROCESSED_AT),
+                processed("osaka", 34.69, 135.50, PROCESSED_AT),
+                processed("fiji-east", -17.0, 179.9, PROCESSED_AT),
+                processed("fiji-west", -17.0, -179.9, PROCESSED_AT)));
+        index.load();
+    }
+
+    private static ProcessedEarthquake processed(String globalId, double lat, double lng, LocalDateTime processedAt) {
+        ProcessedEarthquake processed = new ProcessedEarthquake();
+        processed.setEarthquakeGlobalId(globalId);
+        processed.setLatitude(lat);
+        processed.setLongitude(lng);
+        processed.setProcessedAt(processedAt);
+        return processed;
+    }
+
+    private static List<String> ids(List<NearbyEarthquake> nearby) {
+        return nearby.stream().map(n -> n.getEarthquake().getEarthquakeGlobalId()).toList();
+    }
+
+    @Test
+    void testWithinRadius_returnsNearestFirst() {
+        List<NearbyEarthquake> nearby = index.withinRadius(35.60, 139.70, 100, 10);
+
+        assertEquals(List.of("tokyo", "yokohama"), ids(nearby));
+        assertEquals(GeoUtils.haversineKm(35.60, 139.70, 35.68, 139.69), nearby.get(0).getDistanceKm(), 1e-9);
+        assertEquals(List.of("tokyo"), ids(index.withinRadius(35.60, 139.70, 100, 1)));
+    }
+
+    @Test
+    void testWithinRadius_wrapsAroundAntimeridian() {
+        assertEquals(List.of("fiji-east", "fiji-west"), ids(index.withinRadius(-17.0, 179.95, 50, 10)));
+    }
+
+    @Test
+    void testNearest_expandsUntilKFound() {
+        assertEquals(List.of("tokyo", "yokohama", "osaka"), ids(index.nearest(35.60, 139.70, 3)));
+        assertEquals(5, index.nearest(0, 0, 10).size());
+    }
+
+    @Test
+    void testRefresh_replacesUpdatedEventsAndAddsNewOnes() {
+        when(repository.findByProcessedAtAfter(PROCESSED_AT.minusMinutes(5))).thenReturn(List.of(
+                processed("tokyo", 34.70, 135.51, PROCESSED_AT.plusHours(1)),
+                processed("kobe", 34.69, 135.19, PROCESSED_AT.plusHours(1))));
+
+        assertEquals(2, index.refresh());
+
+        assertEquals(6, index.size());
+        assertEquals(List.of("yokohama"), ids(index.withinRadius(35.60, 139.70, 100, 10)));
+        assertEquals(List.of("osaka", "tokyo", "kobe"), ids(index.withinRadius(34.69, 135.50, 50, 10)));
+        verify(repository).findByProcessedAtAfter(any());
+    }
+}
@@ -0,0 +1,146 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.earthquake_processor_api.app.entity.PopulationDemographics;
+import com.earthquake_processor_api.app.util.GeoUtils;
+
+class LocalPopulationGridTest {
+
+    private static final float NO_DATA = -99999f;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Write a grid where every cell holds the same band values
+     */
+    private Path writeGrid(int columns, int rows, double west, double north, double cellSize, float... cell) throws IOException {
+        int bands = cell.length;
+        ByteBuffer buffer = ByteBuffer.allocate(LocalPopulationGrid.HEADER_BYTES + columns * rows * bands * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(LocalPopulationGrid.MAGIC)
+                .putInt(LocalPopulationGrid.VERSION)
+                .putInt(columns)
+                .putInt(rows)
+                .putInt(bands)
+                .putFloat(NO_DATA)
+                .putDouble(west)
+                .putDouble(north)
+                .putDouble(cellSize);
+        buffer.position(LocalPopulationGrid.HEADER_BYTES);
+        for (int i = 0; i < columns * rows; i++) {
+            for (float value : cell) {
+                buffer.putFloat(value);
+            }
+        }
+
+        Path file = directory.resolve("grid-" + columns + "x" + rows + ".bin");
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    private static LocalPopulationGrid load(Path file) {
+        LocalPopulationGrid grid = new LocalPopulationGrid(file.toString());
+        grid.load();
+        return grid;
+    }
+
+    /**
+     * Count cell centers of a global grid within radiusKm by brute force
+     */
+    private static int cellsWithin(int columns, int rows, double cellSize, double lat, double lng, double radiusKm) {
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                double cellLat = 90 - (row + 0.5) * cellSize;
+                double cellLng = -180 + (column + 0.5) * cellSize;
+                if (GeoUtils.haversineKm(lat, lng, cellLat, cellLng) <= radiusKm) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void testDemographics_sumsCellsInsideCircle() throws Exception {
+        LocalPopulationGrid grid = load(writeGrid(720, 360, -180, 90, 0.5, 1f));
+
+        assertTrue(grid.isLoaded());
+        double[][] points = { { 35.6, 139.7 }, { -33.6, -71.6 }, { 64.1, -21.9 }, { -18.5, 179.9 }, { 0.0, 0.0 } };
+        for (double[] point : points) {
+            double total = grid.demographics(point[0], point[1], 100).orElseThrow().getTotalPopulation();
+
+            assertEquals(cellsWithin(720, 360, 0.5, point[0], point[1], 100), total, 0.5);
+        }
+    }
+
+    @Test
+    void testDemographics_nearPoleAndLargeRadius() throws Exception {
+        LocalPopulationGrid grid = load(writeGrid(72, 36, -180, 90, 5, 1f));
+
+        assertEquals(cellsWithin(72, 36, 5, 89.0, 10.0, 800), grid.demographics(89.0, 10.0, 800).orElseThrow().getTotalPopulation(), 0.5);
+        assertEquals(72 * 36, grid.demographics(0, 0, 30_000).orElseThrow().getTotalPopulation(), 0.5);
+    }
+
+    @Test
+    void testDemographics_ageAndSexBands() throws Exception {
+        // population 10, 6 male, 4 female, mean age 30
+        LocalPopulationGrid grid = load(writeGrid(40, 40, 10, 50, 0.05, 10f, 6f, 4f, 300f));
+
+        PopulationDemographics demographics = grid.demographics(49, 11, 20).orElseThrow();
+
+        assertTrue(demographics.getTotalPopulation() > 0);
+        assertEquals(30.0, demographics.getAvgAge(), 1e-9);
+        assertEquals(60.0, demographics.getPercentMale(), 1e-9);
+        assertEquals(40.0, demographics.getPercentFemale(), 1e-9);
+    }
+
+    @Test
+    void testDemographics_singleBandLeavesAgeAndSexNull() throws Exception {
+        LocalPopulationGrid grid = load(writeGrid(40, 40, 10, 50, 0.05, 10f));
+
+        PopulationDemographics demographics = grid.demographics(49, 11, 20).orElseThrow();
+
+        assertTrue(demographics.getTotalPopulation() > 0);
+        assertNull(demographics.getAvgAge());
+        assertNull(demographics.getPercentMale());
+        assertNull(demographics.getPercentFemale());
+    }
+
+    @Test
+    void testDemographics_skipsNoDataAndOutsideGrid() throws Exception {
+        LocalPopulationGrid noData = load(writeGrid(40, 40, 10, 50, 0.05, NO_DATA));
+        assertEquals(0.0, noData.demographics(49, 11, 20).orElseThrow().getTotalPopulation());
+
+        LocalPopulationGrid regional = load(writeGrid(40, 40, 10, 50, 0.05, 1f));
+        assertTrue(regional.demographics(30, 11, 20).isEmpty());
+        assertTrue(regional.demographics(49, 40, 20).isEmpty());
+    }
+
+    @Test
+    void testLoad_withoutOrWithInvalidFile() throws Exception {
+        LocalPopulationGrid unconfigured = new LocalPopulationGrid("");
+        unconfigured.load();
+        assertFalse(unconfigured.isLoaded());
+        assertTrue(unconfigured.demographics(0, 0, 100).isEmpty());
+
+        Path invalid = Files.write(directory.resolve("invalid.bin"), new byte[LocalPopulationGrid.HEADER_BYTES]);
+        assertFalse(load(invalid).isLoaded());
+
+        Path truncated = writeGrid(10, 10, 0, 10, 1, 1f);
+        Files.write(truncated, Arrays.copyOf(Files.readAllBytes(truncated), LocalPopulationGrid.HEADER_BYTES + 8));
+        assertFalse(load(truncated).isLoaded());
+    }
+}
@@ -0,0 +1,130 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.earthquake_processor_api.app.entity.ParquetExportSummary;
+
+class ParquetExportServiceTest {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+    private ParquetExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:parquet;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE processed_earthquakes (id BIGINT PRIMARY KEY, earthquake_global_id VARCHAR(255), "
+                + "magnitude DOUBLE PRECISION, mag_type VARCHAR(50), place VARCHAR(255), event_time TIMESTAMP, "
+                + "latitude DOUBLE PRECISION, longitude DOUBLE PRECISION, depth DOUBLE PRECISION, tsunami BOOLEAN, "
+                + "alert_level VARCHAR(50), is_significant BOOLEAN, nearest_city VARCHAR(255), "
+                + "distance_to_nearest_city_km DOUBLE PRECISION, population_100km DOUBLE PRECISION, "
+                + "avg_age_100km DOUBLE PRECISION, percent_male_100km DOUBLE PRECISION, "
+                + "percent_female_100km DOUBLE PRECISION, processed_at TIMESTAMP, source_updated TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO processed_earthquakes (id, earthquake_global_id, magnitude, place, event_time, tsunami) VALUES "
+                + "(1, 'us1', 4.5, 'Tokyo, Japan', TIMESTAMP '2025-01-02 03:04:05', TRUE), "
+                + "(2, 'us2', 5.1, NULL, TIMESTAMP '2025-01-02 22:00:00', NULL), "
+                + "(3, 'us3', NULL, NULL, TIMESTAMP '2025-01-03 01:00:00', FALSE), "
+                + "(4, 'us4', 3.0, NULL, NULL, NULL)");
+
+        exportService = new ParquetExportService(dataSource, new DataSourceTransactionManager(dataSource), 2,
+                directory.toString(), "snappy");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE processed_earthquakes");
+    }
+
+    @Test
+    void testExport_writesOnePartitionPerEventDate() throws Exception {
+        ParquetExportSummary summary = exportService.export();
+
+        Path current = directory.resolve(ParquetExportService.CURRENT);
+        assertEquals(4, summary.getRows());
+        assertEquals(3, summary.getPartitions());
+        assertEquals(current.toString(), summary.getDirectory());
+        assertParquetFile(current.resolve("event_date=2025-01-02/part-00000.snappy.parquet"));
+        assertParquetFile(current.resolve("event_date=2025-01-03/part-00000.snappy.parquet"));
+        assertParquetFile(current.resolve("event_date=" + ParquetExportService.NULL_PARTITION + "/part-00000.snappy.parquet"));
+        assertTrue(Files.exists(current.resolve("_SUCCESS")));
+    }
+
+    @Test
+    void testExport_writesNullEventTimesLastWithoutSort() throws Exception {
+        jdbcTemplate.update("INSERT INTO processed_earthquakes (id, earthquake_global_id, event_time) VALUES (0, 'us0', NULL)");
+
+        ParquetExportSummary summary = exportService.export();
+
+        // both null rows land in one null partition file, opened once after the dated partitions
+        assertEquals(5, summary.getRows());
+        assertEquals(3, summary.getPartitions());
+        assertTrue(ParquetExportService.EXPORT_SQL.endsWith("WHERE event_time IS NOT NULL ORDER BY event_time, id"));
+        assertTrue(ParquetExportService.NULL_TIME_EXPORT_SQL.endsWith("WHERE event_time IS NULL ORDER BY id"));
+    }
+
+    @Test
+    void testExport_switchesCurrentToNewVersionAndDeletesPrevious() throws Exception {
+        exportService.export();
+        Path previous = Files.readSymbolicLink(directory.resolve(ParquetExportService.CURRENT));
+        jdbcTemplate.update("DELETE FROM processed_earthquakes WHERE id = 3");
+
+        ParquetExportSummary summary = exportService.export();
+
+        Path current = directory.resolve(ParquetExportService.CURRENT);
+        assertEquals(2, summary.getPartitions());
+        assertNotEquals(previous, Files.readSymbolicLink(current));
+        assertFalse(Files.exists(current.resolve("event_date=2025-01-03")));
+        assertFalse(Files.exists(directory.resolve(previous)));
+        try (Stream<Path> children = Files.list(directory)) {
+            assertEquals(List.of(ParquetExportService.CURRENT, Files.readSymbolicLink(current).toString()),
+                    children.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    @Test
+    void testExport_failureKeepsPreviousExport() throws Exception {
+        exportService.export();
+        Path previous = Files.readSymbolicLink(directory.resolve(ParquetExportService.CURRENT));
+        jdbcTemplate.execute("DROP TABLE processed_earthquakes");
+
+        try {
+            assertThrows(RuntimeException.class, exportService::export);
+
+            assertEquals(previous, Files.readSymbolicLink(directory.resolve(ParquetExportService.CURRENT)));
+            assertParquetFile(directory.resolve(ParquetExportService.CURRENT)
+                    .resolve("event_date=2025-01-02/part-00000.snappy.parquet"));
+            try (Stream<Path> children = Files.list(directory)) {
+                assertEquals(2, children.count());
+            }
+        } finally {
+            jdbcTemplate.execute("CREATE TABLE processed_earthquakes (id BIGINT PRIMARY KEY)");
+        }
+    }
+
+    private static void assertParquetFile(Path file) throws Exception {
+        byte[] bytes = Files.readAllBytes(file);
+
+        assertArrayEquals(MAGIC, Arrays.copyOfRange(bytes, 0, 4));
+        assertArrayEquals(MAGIC, Arrays.copyOfRange(bytes, bytes.length - 4, bytes.length));
+    }
+}
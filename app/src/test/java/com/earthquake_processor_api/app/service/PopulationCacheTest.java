@@ -0,0 +1,130 @@
+package com.earthquake_processor_api.app.service;
+
+import com.earthquake_processor_api.app.entity.PopulationCacheEntry;
+import com.earthquake_processor_api.app.entity.PopulationDemographics;
+import com.earthquake_processor_api.app.repository.PopulationCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PopulationCacheTest {
+
+    private PopulationCacheRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+
+    private final PopulationDemographics demographics = PopulationDemographics.builder()
+            .totalPopulation(2_500_000.0)
+            .avgAge(31.5)
+            .percentMale(49.0)
+            .percentFemale(51.0)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PopulationCacheRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(repository.findByCellKey(anyString())).thenReturn(Optional.empty());
+    }
+
+    private PopulationCache cache(int maxEntries, Duration ttl, boolean persistent) {
+        return new PopulationCache(repository, meterRegistry, 0.1, maxEntries, ttl, persistent);
+    }
+
+    @Test
+    void testGet_sameCellIsHit() {
+        PopulationCache cache = cache(10, Duration.ofDays(1), false);
+        cache.put(19.42, -155.28, 100, demographics);
+
+        Optional<PopulationDemographics> result = cache.get(19.47, -155.24, 100);
+
+        assertTrue(result.isPresent());
+        assertEquals(2_500_000.0, result.get().getTotalPopulation());
+        assertEquals(1.0, meterRegistry.get("population.cache.hits").tag("tier", "memory").counter().count());
+    }
+
+    @Test
+    void testGet_otherCellOrRadiusIsMiss() {
+        PopulationCache cache = cache(10, Duration.ofDays(1), false);
+        cache.put(19.42, -155.28, 100, demographics);
+
+        assertTrue(cache.get(19.55, -155.28, 100).isEmpty());
+        assertTrue(cache.get(19.42, -155.28, 50).isEmpty());
+        assertEquals(2.0, meterRegistry.get("population.cache.misses").counter().count());
+    }
+
+    @Test
+    void testPut_evictsLeastRecentlyUsed() {
+        PopulationCache cache = cache(2, Duration.ofDays(1), false);
+        cache.put(10.0, 10.0, 100, demographics);
+        cache.put(20.0, 20.0, 100, demographics);
+        cache.get(10.0, 10.0, 100); // touch first entry
+        cache.put(30.0, 30.0, 100, demographics);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get(10.0, 10.0, 100).isPresent());
+        assertTrue(cache.get(20.0, 20.0, 100).isEmpty());
+        assertEquals(1.0, meterRegistry.get("population.cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void testGet_expiredEntryIsMiss() {
+        PopulationCache cache = cache(10, Duration.ZERO, false);
+        cache.put(10.0, 10.0, 100, demographics);
+
+        assertTrue(cache.get(10.0, 10.0, 100).isEmpty());
+        assertEquals(0, cache.size());
+        assertEquals(1.0, meterRegistry.get("population.cache.evictions").tag("cause", "expired").counter().count());
+    }
+
+    @Test
+    void testGet_persistentHitIsPromotedToMemory() {
+        PopulationCache cache = cache(10, Duration.ofDays(1), true);
+        String key = cache.cellKey(-33.45, -70.66, 100);
+        PopulationCacheEntry entry = PopulationCacheEntry.builder()
+                .cellKey(key)
+                .totalPopulation(7_000_000.0)
+                .avgAge(35.0)
+                .percentMale(48.0)
+                .percentFemale(52.0)
+                .cachedAt(LocalDateTime.now().minusHours(1))
+                .build();
+        when(repository.findByCellKey(key)).thenReturn(Optional.of(entry));
+
+        assertEquals(7_000_000.0, cache.get(-33.45, -70.66, 100).orElseThrow().getTotalPopulation());
+        assertEquals(7_000_000.0, cache.get(-33.45, -70.66, 100).orElseThrow().getTotalPopulation());
+
+        verify(repository, times(1)).findByCellKey(key);
+        assertEquals(1.0, meterRegistry.get("population.cache.hits").tag("tier", "database").counter().count());
+        assertEquals(1.0, meterRegistry.get("population.cache.hits").tag("tier", "memory").counter().count());
+    }
+
+    @Test
+    void testPut_persistsEntry() {
+        PopulationCache cache = cache(10, Duration.ofDays(1), true);
+        cache.put(61.2, -149.9, 100, demographics);
+
+        verify(repository).upsert(eq(cache.cellKey(61.2, -149.9, 100)), eq(2_500_000.0),
+                any(), any(), any(), notNull());
+        verify(repository, never()).findByCellKey(anyString());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testPut_storeFailureKeepsMemoryEntry() {
+        when(repository.upsert(anyString(), any(), any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+        PopulationCache cache = cache(10, Duration.ofDays(1), true);
+
+        cache.put(61.2, -149.9, 100, demographics);
+
+        assertEquals(2_500_000.0, cache.get(61.2, -149.9, 100).orElseThrow().getTotalPopulation());
+    }
+}
@@ -1,28 +1,63 @@
 package com.earthquake_processor_api.app.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.HashMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
 
 class PopulationRestServiceTest {
 
-    private RestTemplate restTemplate;
     private PopulationRestService populationRestService;
 
     private final String BASE_URL = "https://example.com/population";
     private final String POLL_URL = "https://example.com/population/poll/";
 
+    private final List<String> requestedUrls = new CopyOnWriteArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
-        restTemplate = mock(RestTemplate.class);
-        populationRestService = new PopulationRestService(restTemplate, BASE_URL, POLL_URL, 2020, "wpgpas");
+        populationRestService = service(request -> "{}", Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        populationRestService.shutdown();
+    }
+
+    private PopulationRestService service(Function<ClientRequest, String> responder, Duration deadline) {
+        WebClient webClient = WebClient.builder().exchangeFunction(request -> {
+            requestedUrls.add(request.url().toString());
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(responder.apply(request))
+                    .build());
+        }).build();
+        meterRegistry = new SimpleMeterRegistry();
+        return new PopulationRestService(webClient, meterRegistry, BASE_URL, POLL_URL, 2020, "wpgpas",
+                Duration.ofMillis(10), Duration.ofMillis(40), deadline);
     }
 
     @Test
@@ -40,19 +75,105 @@ class PopulationRestServiceTest {
     @Test
     void testPollForResult_returnsEmptyOnError() throws Exception {
         // simulate task returning error
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("status", "finished");
-        errorResponse.put("error", true);
-        errorResponse.put("error_message", "Simulated error");
-
-        when(restTemplate.getForObject(POLL_URL + "123", Map.class)).thenReturn(errorResponse);
+        populationRestService.shutdown();
+        populationRestService = service(request ->
+                "{\"status\":\"finished\",\"error\":true,\"error_message\":\"Simulated error\"}", Duration.ofSeconds(2));
 
         var method = PopulationRestService.class.getDeclaredMethod("pollForResult", String.class);
         method.setAccessible(true);
-        Map<?, ?> result = (Map<?, ?>) method.invoke(populationRestService, "123");
+        Map<?, ?> result = ((Mono<?>) method.invoke(populationRestService, "123")).map(Map.class::cast).block();
 
+        assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(restTemplate).getForObject(POLL_URL + "123", Map.class);
+        assertEquals(List.of(POLL_URL + "123"), requestedUrls);
+    }
+
+    @Test
+    void testFetchPopulationData_pollsUntilFinished() throws Exception {
+        Deque<String> pollResponses = new ConcurrentLinkedDeque<>(List.of(
+                "{\"status\":\"created\"}",
+                "{\"status\":\"started\"}",
+                "{\"status\":\"finished\",\"error\":false,\"data\":{\"agesexpyramid\":"
+                        + "[{\"age\":\"0 to 4\",\"male\":10,\"female\":12}]}}"));
+
+        populationRestService.shutdown();
+        populationRestService = service(request -> request.url().toString().startsWith(POLL_URL)
+                ? pollResponses.poll()
+                : "{\"taskid\":\"abc\"}", Duration.ofSeconds(2));
+
+        List<Map<String, Object>> pyramid = populationRestService.fetchPopulationData(10.0, 20.0, 100.0);
+
+        assertEquals(1, pyramid.size());
+        assertEquals("0 to 4", pyramid.get(0).get("age"));
+        assertEquals(4, requestedUrls.size());
+        assertTrue(requestedUrls.get(0).startsWith(BASE_URL + "?dataset=wpgpas&year=2020&geojson="));
+
+        assertEquals(1, meterRegistry.get("worldpop.submit").tag("outcome", "success").timer().count());
+        assertEquals(3.0, meterRegistry.get("worldpop.poll.iterations").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("worldpop.task").tag("outcome", "finished").timer().count());
+    }
+
+    @Test
+    void testFetchPopulationData_returnsEmptyAfterDeadline() throws Exception {
+        populationRestService.shutdown();
+        populationRestService = service(request -> request.url().toString().startsWith(POLL_URL)
+                ? "{\"status\":\"started\"}"
+                : "{\"taskid\":\"abc\"}", Duration.ofMillis(200));
+
+        List<Map<String, Object>> pyramid = populationRestService.fetchPopulationData(10.0, 20.0, 100.0);
+
+        assertTrue(pyramid.isEmpty());
+        assertTrue(requestedUrls.size() > 2);
+        assertEquals(1.0, meterRegistry.get("worldpop.timeouts").counter().count());
+        assertEquals(1, meterRegistry.get("worldpop.task").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void testFetchPopulationData_deadlineCoversSubmit() throws Exception {
+        populationRestService.shutdown();
+        WebClient slowSubmit = WebClient.builder().exchangeFunction(request -> {
+            requestedUrls.add(request.url().toString());
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"taskid\":\"abc\"}")
+                            .build())
+                    .delayElement(Duration.ofSeconds(5));
+        }).build();
+        meterRegistry = new SimpleMeterRegistry();
+        populationRestService = new PopulationRestService(slowSubmit, meterRegistry, BASE_URL, POLL_URL, 2020, "wpgpas",
+                Duration.ofMillis(10), Duration.ofMillis(40), Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        List<Map<String, Object>> pyramid = populationRestService.fetchPopulationData(10.0, 20.0, 100.0);
+
+        assertTrue(pyramid.isEmpty());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+        assertEquals(1, requestedUrls.size());
+        assertEquals(1.0, meterRegistry.get("worldpop.timeouts").counter().count());
+        assertEquals(1, meterRegistry.get("worldpop.task").tag("outcome", "timeout").timer().count());
     }
-}
 
+    @Test
+    void testFetchPopulationDataAsync_tracksManyTasksConcurrently() {
+        populationRestService.shutdown();
+        populationRestService = service(request -> request.url().toString().startsWith(POLL_URL)
+                ? "{\"status\":\"finished\",\"error\":false,\"data\":{\"agesexpyramid\":[]}}"
+                : "{\"taskid\":\"abc\"}", Duration.ofSeconds(2));
+
+        List<CompletableFuture<List<Map<String, Object>>>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(populationRestService.fetchPopulationDataAsync(i % 90, i % 180, 100.0));
+        }
+
+        futures.forEach(future -> assertNotNull(future.join()));
+        assertEquals(400, requestedUrls.size());
+    }
+
+    @Test
+    void testPollBackoff_isCapped() {
+        assertEquals(Duration.ofMillis(10), populationRestService.pollBackoff(0));
+        assertEquals(Duration.ofMillis(20), populationRestService.pollBackoff(1));
+        assertEquals(Duration.ofMillis(40), populationRestService.pollBackoff(2));
+        assertEquals(Duration.ofMillis(40), populationRestService.pollBackoff(10));
+    }
+}
@@ -13,12 +13,17 @@ import static org.mockito.Mockito.*;
 class PopulationServiceTest {
 
     private PopulationRestService populationRestService;
+    private PopulationCache populationCache;
+    private LocalPopulationGrid localPopulationGrid;
     private PopulationService populationService;
 
     @BeforeEach
     void setUp() {
         populationRestService = mock(PopulationRestService.class);
-        populationService = new PopulationService(populationRestService);
+        populationCache = mock(PopulationCache.class);
+        localPopulationGrid = mock(LocalPopulationGrid.class);
+        when(localPopulationGrid.demographics(anyDouble(), anyDouble(), anyDouble())).thenReturn(Optional.empty());
+        populationService = new PopulationService(populationRestService, populationCache, localPopulationGrid);
     }
 
     @Test
@@ -29,10 +34,10 @@ class PopulationServiceTest {
         PopulationDemographics result = populationService.fetchPopulation(0, 0, 10);
 
         assertNotNull(result);
-        assertEquals(0.0, result.getTotalPopulation());
-        assertEquals(0.0, result.getAvgAge());
-        assertEquals(0.0, result.getPercentMale());
-        assertEquals(0.0, result.getPercentFemale());
+        assertNull(result.getTotalPopulation());
+        assertNull(result.getAvgAge());
+        assertNull(result.getPercentMale());
+        assertNull(result.getPercentFemale());
     }
 
     @Test
@@ -74,6 +79,43 @@ class PopulationServiceTest {
         assertEquals(femalePercent, result.getPercentFemale(), 0.001);
     }
 
+    @Test
+    void testFetchPopulation_CacheHitSkipsWorldPop() throws Exception {
+        PopulationDemographics cached = PopulationDemographics.builder()
+                .totalPopulation(1000.0)
+                .avgAge(30.0)
+                .build();
+        when(populationCache.get(anyDouble(), anyDouble(), anyDouble())).thenReturn(Optional.of(cached));
+
+        PopulationDemographics result = populationService.fetchPopulation(0, 0, 10);
+
+        assertSame(cached, result);
+        verify(populationRestService, never()).fetchPopulationData(anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void testFetchPopulation_LocalGridSkipsCacheAndWorldPop() throws Exception {
+        PopulationDemographics local = PopulationDemographics.builder()
+                .totalPopulation(2500.0)
+                .build();
+        when(localPopulationGrid.demographics(anyDouble(), anyDouble(), anyDouble())).thenReturn(Optional.of(local));
+
+        PopulationDemographics result = populationService.fetchPopulation(0, 0, 100);
+
+        assertSame(local, result);
+        verifyNoInteractions(populationCache, populationRestService);
+    }
+
+    @Test
+    void testFetchPopulation_EmptyDataIsNotCached() throws Exception {
+        when(populationRestService.fetchPopulationData(anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(Collections.emptyList());
+
+        populationService.fetchPopulation(0, 0, 10);
+
+        verify(populationCache, never()).put(anyDouble(), anyDouble(), anyDouble(), any());
+    }
+
     @Test
     void testCalculateAverageAge_EmptyList() {
         double avgAge = populationService.calculateAverageAge(Collections.emptyList());
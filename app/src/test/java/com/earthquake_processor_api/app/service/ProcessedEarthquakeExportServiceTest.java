@@ -0,0 +1,103 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.earthquake_processor_api.app.util.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ProcessedEarthquakeExportServiceTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ProcessedEarthquakeExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE processed_earthquakes (id BIGINT PRIMARY KEY, earthquake_global_id VARCHAR(255), "
+                + "magnitude DOUBLE PRECISION, mag_type VARCHAR(50), place VARCHAR(255), event_time TIMESTAMP, "
+                + "latitude DOUBLE PRECISION, longitude DOUBLE PRECISION, depth DOUBLE PRECISION, tsunami BOOLEAN, "
+                + "alert_level VARCHAR(50), is_significant BOOLEAN, nearest_city VARCHAR(255), "
+                + "distance_to_nearest_city_km DOUBLE PRECISION, population_100km DOUBLE PRECISION, "
+                + "avg_age_100km DOUBLE PRECISION, percent_male_100km DOUBLE PRECISION, "
+                + "percent_female_100km DOUBLE PRECISION, processed_at TIMESTAMP, source_updated TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO processed_earthquakes (id, earthquake_global_id, magnitude, place, event_time, "
+                + "latitude, longitude, depth, tsunami, processed_at) VALUES "
+                + "(2, 'us2', 5.1, 'Tokyo, \"Japan\"', TIMESTAMP '2025-01-02 03:04:05', 35.6, 139.7, 10.0, TRUE, "
+                + "TIMESTAMP '2025-01-03 00:00:00')");
+        jdbcTemplate.update("INSERT INTO processed_earthquakes (id, earthquake_global_id, magnitude, processed_at) VALUES "
+                + "(1, 'us1', 4.5, TIMESTAMP '2025-01-03 00:00:00')");
+
+        exportService = new ProcessedEarthquakeExportService(dataSource, new DataSourceTransactionManager(dataSource), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE processed_earthquakes");
+    }
+
+    private String export(ExportFormat format, long expectedRows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expectedRows, exportService.export(format, out));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testExport_ndjsonWritesOneObjectPerLine() throws Exception {
+        String[] lines = export(ExportFormat.NDJSON, 2).split("\n");
+
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertTrue(first.get("place").isNull());
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertEquals("Tokyo, \"Japan\"", second.get("place").asText());
+        assertEquals("2025-01-02T03:04:05", second.get("event_time").asText());
+        assertTrue(second.get("tsunami").asBoolean());
+    }
+
+    @Test
+    void testExport_csvQuotesText() throws Exception {
+        String[] lines = export(ExportFormat.CSV, 2).split("\n");
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,earthquake_global_id,magnitude,"));
+        assertTrue(lines[1].startsWith("1,\"us1\",4.5,,,"));
+        assertTrue(lines[2].startsWith("2,\"us2\",5.1,,\"Tokyo, \"\"Japan\"\"\",\"2025-01-02T03:04:05\",35.6,139.7,10.0,true,"));
+    }
+
+    @Test
+    void testExport_geojsonFeatureCollection() throws Exception {
+        JsonNode collection = new ObjectMapper().readTree(export(ExportFormat.GEOJSON, 2));
+
+        assertEquals("FeatureCollection", collection.get("type").asText());
+        assertEquals(2, collection.get("features").size());
+        assertTrue(collection.get("features").get(0).get("geometry").isNull());
+
+        JsonNode feature = collection.get("features").get(1);
+        assertEquals("us2", feature.get("id").asText());
+        assertEquals(139.7, feature.get("geometry").get("coordinates").get(0).asDouble());
+        assertEquals(35.6, feature.get("geometry").get("coordinates").get(1).asDouble());
+        assertEquals(5.1, feature.get("properties").get("magnitude").asDouble());
+        assertFalse(feature.get("properties").has("latitude"));
+    }
+
+    @Test
+    void testExport_emptyTable() throws Exception {
+        jdbcTemplate.update("DELETE FROM processed_earthquakes");
+
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[]}", export(ExportFormat.GEOJSON, 0));
+    }
+}
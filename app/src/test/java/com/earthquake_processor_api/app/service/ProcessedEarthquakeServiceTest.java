@@ -0,0 +1,90 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquakePage;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquakeQuery;
+import com.earthquake_processor_api.app.repository.ProcessedEarthquakeRepository;
+
+class ProcessedEarthquakeServiceTest {
+
+    private ProcessedEarthquakeRepository repository;
+    private ProcessedEarthquakeService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProcessedEarthquakeRepository.class);
+        service = new ProcessedEarthquakeService(repository, 2, 10);
+    }
+
+    private static ProcessedEarthquake processed(long id, LocalDateTime eventTime) {
+        ProcessedEarthquake processed = new ProcessedEarthquake();
+        processed.setId(id);
+        processed.setEventTime(eventTime);
+        return processed;
+    }
+
+    @Test
+    void testFindPage_returnsCursorWhenMoreRowsFollow() {
+        LocalDateTime time = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+        when(repository.findPage(any(), eq(3))).thenReturn(new ArrayList<>(List.of(
+                processed(30, time), processed(20, time), processed(10, time.minusHours(1)))));
+
+        ProcessedEarthquakePage page = service.findPage(ProcessedEarthquakeQuery.builder().minMagnitude(4.5).build(), null, null);
+
+        assertEquals(List.of(30L, 20L), page.getItems().stream().map(ProcessedEarthquake::getId).toList());
+        assertNotNull(page.getNextCursor());
+
+        ProcessedEarthquakeQuery next = service.decodeCursor(ProcessedEarthquakeQuery.builder().minMagnitude(4.5).build(),
+                page.getNextCursor());
+        assertEquals(time, next.getAfterEventTime());
+        assertEquals(20L, next.getAfterId());
+        assertEquals(4.5, next.getMinMagnitude());
+    }
+
+    @Test
+    void testFindPage_lastPageHasNoCursor() {
+        when(repository.findPage(any(), eq(3))).thenReturn(List.of(processed(10, LocalDateTime.now())));
+
+        ProcessedEarthquakePage page = service.findPage(ProcessedEarthquakeQuery.builder().build(), null, null);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testFindPage_seeksPastCursor() {
+        LocalDateTime time = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 123000000);
+        String cursor = service.encodeCursor(processed(42, time));
+        when(repository.findPage(any(), eq(6))).thenReturn(List.of());
+
+        service.findPage(ProcessedEarthquakeQuery.builder().alertLevel("red").build(), cursor, 5);
+
+        ArgumentCaptor<ProcessedEarthquakeQuery> captor = ArgumentCaptor.forClass(ProcessedEarthquakeQuery.class);
+        verify(repository).findPage(captor.capture(), eq(6));
+        assertEquals(time, captor.getValue().getAfterEventTime());
+        assertEquals(42L, captor.getValue().getAfterId());
+        assertEquals("red", captor.getValue().getAlertLevel());
+    }
+
+    @Test
+    void testFindPage_rejectsBadInput() {
+        ProcessedEarthquakeQuery query = ProcessedEarthquakeQuery.builder().build();
+
+        assertThrows(IllegalArgumentException.class, () -> service.findPage(query, "not-a-cursor", null));
+        assertThrows(IllegalArgumentException.class, () -> service.findPage(query, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.findPage(query, null, 11));
+        verifyNoInteractions(repository);
+    }
+}
@@ -0,0 +1,188 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResponseExtractor;
+
+import com.earthquake_processor_api.app.entity.EarthquakeEventRow;
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RealtimeEarthquakeFeedTest {
+
+    private static final String FEED_URL = "https://example.com/summary/all_hour.geojson";
+
+    private EarthquakeRestService restService;
+    private EarthquakeEnrichmentService enrichmentService;
+    private EarthquakeSpatialIndex spatialIndex;
+    private ResponseCache responseCache;
+    private SignificantEarthquakeBroadcaster broadcaster;
+    private ItemWriter<ProcessedEarthquake> writer;
+    private SimpleMeterRegistry meterRegistry;
+    private RealtimeEarthquakeFeed feed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        restService = mock(EarthquakeRestService.class);
+        enrichmentService = mock(EarthquakeEnrichmentService.class);
+        spatialIndex = mock(EarthquakeSpatialIndex.class);
+        responseCache = mock(ResponseCache.class);
+        broadcaster = mock(SignificantEarthquakeBroadcaster.class);
+        writer = mock(ItemWriter.class);
+        meterRegistry = new SimpleMeterRegistry();
+        feed = feed(2);
+    }
+
+    private RealtimeEarthquakeFeed feed(int queueCapacity) {
+        return new RealtimeEarthquakeFeed(restService, new EarthquakeService(null, null, null, null, meterRegistry),
+                enrichmentService, spatialIndex, responseCache, broadcaster, writer,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry,
+                true, FEED_URL, Duration.ofMinutes(1), queueCapacity, 1, 10);
+    }
+
+    private static String feature(String id, long updated) {
+        return "{\"type\":\"Feature\",\"id\":\"" + id + "\",\"properties\":{\"mag\":4.5,\"time\":1700000000000,"
+                + "\"updated\":" + updated + "},\"geometry\":{\"type\":\"Point\",\"coordinates\":[139.7,35.6,10.0]}}";
+    }
+
+    private static String featureCollection(String... features) {
+        return "{\"type\":\"FeatureCollection\",\"features\":["
+                + Stream.of(features).collect(Collectors.joining(",")) + "]}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respond(HttpStatus status, String body, String etag) {
+        when(restService.streamFeed(eq(FEED_URL), any(), any(), any())).thenAnswer(invocation -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(
+                    body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0], status);
+            if (etag != null) {
+                response.getHeaders().setETag(etag);
+                response.getHeaders().set(HttpHeaders.LAST_MODIFIED, "Mon, 06 Jan 2025 10:00:00 GMT");
+            }
+            return ((ResponseExtractor<Object>) invocation.getArgument(3)).extractData(response);
+        });
+    }
+
+    private List<String> queuedIds() {
+        return feed.drainQueue().stream().map(pending -> pending.row().earthquakeGlobalId()).toList();
+    }
+
+    @Test
+    void testPoll_queuesNewEventsAndSendsValidatorsNextTime() {
+        respond(HttpStatus.OK, featureCollection(feature("us1", 1000), feature("us2", 1000)), "\"v1\"");
+
+        assertEquals(2, feed.poll());
+        assertEquals(List.of("us1", "us2"), queuedIds());
+
+        respond(HttpStatus.NOT_MODIFIED, null, null);
+        assertEquals(0, feed.poll());
+        verify(restService).streamFeed(eq(FEED_URL), eq("\"v1\""), eq("Mon, 06 Jan 2025 10:00:00 GMT"), any());
+    }
+
+    @Test
+    void testPoll_requeuesOnlyUpdatedEvents() {
+        respond(HttpStatus.OK, featureCollection(feature("us1", 1000), feature("us2", 1000)), "\"v1\"");
+        feed.poll();
+        feed.drainQueue();
+
+        respond(HttpStatus.OK, featureCollection(feature("us1", 1000), feature("us2", 2000)), "\"v2\"");
+
+        assertEquals(1, feed.poll());
+        assertEquals(List.of("us2"), queuedIds());
+    }
+
+    @Test
+    void testPoll_fullQueueDropsAndOffersAgainNextPoll() {
+        feed = feed(1);
+        respond(HttpStatus.OK, featureCollection(feature("us1", 1000), feature("us2", 1000)), "\"v1\"");
+
+        assertEquals(1, feed.poll());
+        assertEquals(1.0, meterRegistry.counter("earthquake.realtime.events", "outcome", "dropped").count());
+        assertEquals(List.of("us1"), queuedIds());
+
+        assertEquals(1, feed.poll());
+        assertEquals(List.of("us2"), queuedIds());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcess_writesEnrichedEventsAndUpdatesReadSide() throws Exception {
+        ProcessedEarthquake processed = new ProcessedEarthquake();
+        processed.setEarthquakeGlobalId("us1");
+        when(enrichmentService.enrich(any())).thenAnswer(invocation -> {
+            EarthquakeEventRow row = invocation.getArgument(0);
+            if (row.earthquakeGlobalId().equals("us2")) {
+                throw new IllegalStateException("population lookup failed");
+            }
+            return processed;
+        });
+        respond(HttpStatus.OK, featureCollection(feature("us1", 1000), feature("us2", 1000)), "\"v1\"");
+        feed.poll();
+
+        feed.process(feed.drainQueue());
+
+        ArgumentCaptor<Chunk<ProcessedEarthquake>> chunk = ArgumentCaptor.forClass(Chunk.class);
+        verify(writer).write(chunk.capture());
+        assertEquals(List.of(processed), chunk.getValue().getItems());
+        verify(spatialIndex).apply(List.of(processed));
+        verify(responseCache).invalidate();
+        verify(broadcaster).publishAfterCommit(List.of(processed));
+        assertEquals(1.0, meterRegistry.counter("earthquake.realtime.events", "outcome", "error").count());
+        assertEquals(1, meterRegistry.get("earthquake.realtime.latency").tag("since", "queue").timer().count());
+    }
+
+    @Test
+    void testProcess_failedEnrichmentIsQueuedAgainOnNextPoll() throws Exception {
+        when(enrichmentService.enrich(any())).thenAnswer(invocation -> {
+            EarthquakeEventRow row = invocation.getArgument(0);
+            if (row.earthquakeGlobalId().equals("us2")) {
+                throw new IllegalStateException("population lookup failed");
+            }
+            return new ProcessedEarthquake();
+        });
+        respond(HttpStatus.OK, featureCollection(feature("us1", 1000), feature("us2", 1000)), "\"v1\"");
+        feed.poll();
+        feed.process(feed.drainQueue());
+
+        assertEquals(1, feed.poll());
+        assertEquals(List.of("us2"), queuedIds());
+        // the validators were dropped, so an unchanged feed cannot answer 304
+        verify(restService, times(2)).streamFeed(eq(FEED_URL), isNull(), isNull(), any());
+    }
+
+    @Test
+    void testProcess_failedWriteIsCountedAndQueuedAgainOnNextPoll() throws Exception {
+        when(enrichmentService.enrich(any())).thenReturn(new ProcessedEarthquake());
+        doThrow(new IllegalStateException("connection reset")).when(writer).write(any());
+        respond(HttpStatus.OK, featureCollection(feature("us1", 1000), feature("us2", 1000)), "\"v1\"");
+        feed.poll();
+
+        feed.process(feed.drainQueue());
+
+        assertEquals(2.0, meterRegistry.counter("earthquake.realtime.events", "outcome", "error").count());
+        verifyNoInteractions(spatialIndex, responseCache, broadcaster);
+
+        assertEquals(2, feed.poll());
+        assertEquals(List.of("us1", "us2"), queuedIds());
+    }
+}
@@ -0,0 +1,87 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ResponseCache(new ObjectMapper(), meterRegistry, 2);
+    }
+
+    @Test
+    void testGet_loadsOnceAndServesSerializedBody() {
+        AtomicInteger loads = new AtomicInteger();
+
+        ResponseCache.CachedResponse first = cache.get("k", () -> {
+            loads.incrementAndGet();
+            return Map.of("count", 1);
+        });
+        ResponseCache.CachedResponse second = cache.get("k", () -> {
+            loads.incrementAndGet();
+            return Map.of("count", 2);
+        });
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals("{\"count\":1}", new String(first.body(), StandardCharsets.UTF_8));
+        assertTrue(first.etag().matches("\"[0-9a-f]{64}\""));
+        assertEquals(1.0, meterRegistry.counter("response.cache.hits").count());
+        assertEquals(1.0, meterRegistry.counter("response.cache.misses").count());
+    }
+
+    @Test
+    void testGet_etagFollowsContent() {
+        String etag = cache.get("a", () -> List.of(1, 2)).etag();
+
+        assertEquals(etag, cache.get("b", () -> List.of(1, 2)).etag());
+        assertNotEquals(etag, cache.get("c", () -> List.of(1, 3)).etag());
+    }
+
+    @Test
+    void testInvalidate_forcesReload() {
+        cache.get("k", () -> List.of(1));
+        cache.invalidate();
+
+        assertEquals(0, cache.size());
+        assertEquals("[2]", new String(cache.get("k", () -> List.of(2)).body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testInvalidateDuringLoad_doesNotCacheStaleResponse() {
+        cache.get("k", () -> {
+            cache.invalidate();
+            return List.of(1);
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testGet_evictsLeastRecentlyUsed() {
+        cache.get("a", () -> 1);
+        cache.get("b", () -> 2);
+        cache.get("a", () -> 1);
+        cache.get("c", () -> 3);
+
+        assertEquals(2, cache.size());
+        assertEquals("1", new String(cache.get("a", () -> 9).body(), StandardCharsets.UTF_8));
+        assertEquals("9", new String(cache.get("b", () -> 9).body(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,124 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import com.earthquake_processor_api.app.entity.NearestCity;
+import com.earthquake_processor_api.app.util.GeoUtils;
+
+class ReverseGeocodingServiceTest {
+
+    private ReverseGeocodingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReverseGeocodingService(new ClassPathResource("geonames/cities.tsv"), 0);
+        service.load();
+    }
+
+    @Test
+    void testNearestCity_bundledCities() {
+        assertTrue(service.size() > 0);
+
+        NearestCity volcano = service.nearestCity(19.29, -155.24).orElseThrow();
+        assertEquals("Volcano, HI", volcano.getLabel());
+        assertEquals(GeoUtils.haversineKm(19.29, -155.24, volcano.getLatitude(), volcano.getLongitude()),
+                volcano.getDistanceKm(), 1e-6);
+
+        NearestCity chile = service.nearestCity(-33.65, -71.75).orElseThrow();
+        assertEquals("San Antonio, CL", chile.getLabel());
+    }
+
+    @Test
+    void testNearestCity_acrossAntimeridian() {
+        NearestCity city = service.nearestCity(-18.5, 179.9).orElseThrow();
+
+        assertEquals("Suva", city.getName());
+        assertEquals("FJ", city.getCountryCode());
+    }
+
+    @Test
+    void testNearestCity_withoutCoordinates() {
+        assertTrue(service.nearestCity(null, 10.0).isEmpty());
+        assertTrue(service.nearestCity(10.0, null).isEmpty());
+    }
+
+    @Test
+    void testNearestCity_matchesLinearScan() {
+        List<double[]> cities = new ArrayList<>();
+        StringBuilder file = new StringBuilder("# generated\n");
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            double lat = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            double lng = random.nextDouble() * 360 - 180;
+            cities.add(new double[] { lat, lng });
+            file.append('\t').append("city").append(i).append("\t\t\t").append(lat).append('\t').append(lng)
+                    .append("\tP\tPPL\tXX\t\t01\t\t\t\t1000\t\t\t\t\n");
+        }
+        file.append("not a city line\n");
+        ReverseGeocodingService generated = new ReverseGeocodingService(
+                new ByteArrayResource(file.toString().getBytes(StandardCharsets.UTF_8)), 0);
+        generated.load();
+        assertEquals(2000, generated.size());
+
+        for (int q = 0; q < 500; q++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lng = random.nextDouble() * 360 - 180;
+            double expected = Double.MAX_VALUE;
+            for (double[] city : cities) {
+                expected = Math.min(expected, GeoUtils.haversineKm(lat, lng, city[0], city[1]));
+            }
+
+            assertEquals(expected, generated.nearestCity(lat, lng).orElseThrow().getDistanceKm(), 1e-6);
+        }
+    }
+
+    @Test
+    void testLoad_minPopulationAndMissingFile() {
+        ReverseGeocodingService large = new ReverseGeocodingService(new ClassPathResource("geonames/cities.tsv"), 1_000_000);
+        large.load();
+        assertTrue(large.size() > 0);
+        assertTrue(large.size() < service.size());
+
+        ReverseGeocodingService missing = new ReverseGeocodingService(new ClassPathResource("geonames/missing.tsv"), 0);
+        missing.load();
+        assertEquals(0, missing.size());
+        assertTrue(missing.nearestCity(0.0, 0.0).isEmpty());
+    }
+
+    @Test
+    void testLoad_geonamesZip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("readme.txt.md"));
+            zip.write("not cities".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("cities15000.txt"));
+            zip.write(("3573890\tHilo\tHilo\t\t19.72972\t-155.09\tP\tPPLA2\tUS\t\tHI\t001\t\t\t44186\t\t\t\t\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayResource archive = new ByteArrayResource(bytes.toByteArray()) {
+            @Override
+            public String getFilename() {
+                return "cities15000.zip";
+            }
+        };
+
+        ReverseGeocodingService zipped = new ReverseGeocodingService(archive, 0);
+        zipped.load();
+
+        assertEquals(1, zipped.size());
+        assertEquals("Hilo, HI", zipped.nearestCity(19.29, -155.24).orElseThrow().getLabel());
+    }
+}
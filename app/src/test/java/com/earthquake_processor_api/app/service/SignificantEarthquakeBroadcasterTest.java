@@ -0,0 +1,274 @@
+package com.earthquake_processor_api.app.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.earthquake_processor_api.app.entity.ProcessedEarthquake;
+import com.earthquake_processor_api.app.service.SignificantEarthquakeBroadcaster.Filter;
+import com.earthquake_processor_api.app.service.SignificantEarthquakeBroadcaster.OverflowPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SignificantEarthquakeBroadcasterTest {
+
+    private static final Filter ALL = new Filter(null, null, null, null, null);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2025, 1, 6, 10, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<Runnable> pending;
+    private Executor queuedExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pending = new ArrayList<>();
+        queuedExecutor = pending::add;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private SignificantEarthquakeBroadcaster broadcaster(Executor executor, int bufferSize, OverflowPolicy policy) {
+        return new SignificantEarthquakeBroadcaster(OBJECT_MAPPER, meterRegistry, executor, bufferSize, policy,
+                10, Duration.ofMinutes(1));
+    }
+
+    private static ProcessedEarthquake earthquake(String id, double magnitude, double latitude, double longitude,
+                                                  boolean significant) {
+        ProcessedEarthquake earthquake = new ProcessedEarthquake();
+        earthquake.setEarthquakeGlobalId(id);
+        earthquake.setMagnitude(magnitude);
+        earthquake.setLatitude(latitude);
+        earthquake.setLongitude(longitude);
+        earthquake.setIsSignificant(significant);
+        earthquake.setSourceUpdated(UPDATED);
+        return earthquake;
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+
+    private double events(String outcome) {
+        return meterRegistry.counter("earthquake.sse.events", "outcome", outcome).count();
+    }
+
+    @Test
+    void testPublish_sendsSignificantEarthquakesMatchingTheFilter() {
+        SignificantEarthquakeBroadcaster broadcaster = broadcaster(Runnable::run, 10, OverflowPolicy.DROP_OLDEST);
+        RecordingEmitter all = new RecordingEmitter();
+        RecordingEmitter japanM6 = new RecordingEmitter();
+        broadcaster.register(all, ALL);
+        broadcaster.register(japanM6, new Filter(6.0, 30.0, 46.0, 128.0, 146.0));
+
+        broadcaster.publishAfterCommit(List.of(
+                earthquake("us1", 6.5, 35.6, 139.7, true),
+                earthquake("us2", 7.0, 35.6, 139.7, false),
+                earthquake("us3", 6.2, 61.2, -149.9, true),
+                earthquake("us4", 5.1, 35.6, 139.7, true)));
+
+        assertEquals(3, all.sent.size());
+        assertEquals(1, japanM6.sent.size());
+        assertTrue(japanM6.sent.get(0).contains("id:us1"));
+        assertTrue(japanM6.sent.get(0).contains("event:" + SignificantEarthquakeBroadcaster.EVENT_NAME));
+        assertTrue(japanM6.sent.get(0).contains("\"earthquakeGlobalId\":\"us1\""));
+        assertEquals(3, events("published"));
+        assertEquals(4, events("sent"));
+    }
+
+    @Test
+    void testPublishAfterCommit_waitsForTheTransaction() {
+        SignificantEarthquakeBroadcaster broadcaster = broadcaster(Runnable::run, 10, OverflowPolicy.DROP_OLDEST);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.register(emitter, ALL);
+        TransactionSynchronizationManager.initSynchronization();
+
+        broadcaster.publishAfterCommit(List.of(earthquake("us1", 6.5, 35.6, 139.7, true)));
+        assertTrue(emitter.sent.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, emitter.sent.size());
+    }
+
+    @Test
+    void testPublish_skipsRewritesOfUnchangedEarthquakes() {
+        SignificantEarthquakeBroadcaster broadcaster = broadcaster(Runnable::run, 10, OverflowPolicy.DROP_OLDEST);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.register(emitter, ALL);
+
+        broadcaster.publishAfterCommit(List.of(earthquake("us1", 6.5, 35.6, 139.7, true)));
+        broadcaster.publishAfterCommit(List.of(earthquake("us1", 6.5, 35.6, 139.7, true)));
+        ProcessedEarthquake updated = earthquake("us1", 6.7, 35.6, 139.7, true);
+        updated.setSourceUpdated(UPDATED.plusMinutes(5));
+        broadcaster.publishAfterCommit(List.of(updated));
+
+        assertEquals(2, emitter.sent.size());
+        assertTrue(emitter.sent.get(1).contains("\"magnitude\":6.7"));
+        assertEquals(1, events("unchanged"));
+    }
+
+    @Test
+    void testPublish_fullBufferDropsOldest() {
+        SignificantEarthquakeBroadcaster broadcaster = broadcaster(queuedExecutor, 2, OverflowPolicy.DROP_OLDEST);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.register(emitter, ALL);
+
+        broadcaster.publishAfterCommit(List.of(
+                earthquake("us1", 6.5, 35.6, 139.7, true),
+                earthquake("us2", 6.5, 35.6, 139.7, true),
+                earthquake("us3", 6.5, 35.6, 139.7, true)));
+        runPending();
+
+        assertEquals(1, events("dropped"));
+        assertEquals(2, emitter.sent.size());
+        assertTrue(emitter.sent.get(0).contains("id:us2"));
+        assertTrue(emitter.sent.get(1).contains("id:us3"));
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void testPublish_fullBufferDisconnectsSlowConsumer() {
+        SignificantEarthquakeBroadcaster broadcaster = broadcaster(queuedExecutor, 1, OverflowPolicy.DISCONNECT);
+        RecordingEmitter slow = new RecordingEmitter();
+        broadcaster.register(slow, ALL);
+
+        broadcaster.publishAfterCommit(List.of(
+                earthquake("us1", 6.5, 35.6, 139.7, true),
+                earthquake("us2", 6.5, 35.6, 139.7, true)));
+        runPending();
+
+        assertEquals(0, broadcaster.subscriberCount());
+        assertEquals(1, meterRegistry.counter("earthquake.sse.disconnects", "reason", "slow").count());
+        assertTrue(slow.sent.isEmpty());
+    }
+
+    @Test
+    void testSendFailure_removesSubscriber() {
+        SignificantEarthquakeBroadcaster broadcaster = broadcaster(Runnable::run, 10, OverflowPolicy.DROP_OLDEST);
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.failing = true;
+        broadcaster.register(gone, ALL);
+
+        broadcaster.publishAfterCommit(List.of(earthquake("us1", 6.5, 35.6, 139.7, true)));
+
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void testHeartbeat_sendsCommentToIdleSubscribers() {
+        SignificantEarthquakeBroadcaster broadcaster = broadcaster(Runnable::run, 10, OverflowPolicy.DROP_OLDEST);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.register(emitter, ALL);
+
+        broadcaster.heartbeat();
+
+        assertEquals(List.of(":heartbeat\n\n"), emitter.sent);
+        assertEquals(0, events("sent"));
+    }
+
+    @Test
+    void testRegister_rejectsBeyondMaxSubscribers() {
+        SignificantEarthquakeBroadcaster broadcaster = new SignificantEarthquakeBroadcaster(OBJECT_MAPPER,
+                meterRegistry, Runnable::run, 10, OverflowPolicy.DROP_OLDEST, 1, Duration.ofMinutes(1));
+        broadcaster.register(new RecordingEmitter(), ALL);
+
+        assertThrows(IllegalStateException.class, () -> broadcaster.register(new RecordingEmitter(), ALL));
+    }
+
+    @Test
+    void testRegister_concurrentSubscribesRespectMaxSubscribers() throws Exception {
+        SignificantEarthquakeBroadcaster broadcaster = new SignificantEarthquakeBroadcaster(OBJECT_MAPPER,
+                meterRegistry, Runnable::run, 10, OverflowPolicy.DROP_OLDEST, 5, Duration.ofMinutes(1));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        broadcaster.register(new RecordingEmitter(), ALL);
+                        accepted.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        // over the limit
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(5, accepted.get());
+        assertEquals(5, broadcaster.subscriberCount());
+        assertEquals(45, meterRegistry.counter("earthquake.sse.disconnects", "reason", "rejected").count());
+    }
+
+    @Test
+    void testRemove_releasesSlotOnce() {
+        SignificantEarthquakeBroadcaster broadcaster = new SignificantEarthquakeBroadcaster(OBJECT_MAPPER,
+                meterRegistry, Runnable::run, 10, OverflowPolicy.DROP_OLDEST, 1, Duration.ofMinutes(1));
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.failing = true;
+        broadcaster.register(gone, ALL);
+
+        broadcaster.publishAfterCommit(List.of(earthquake("us1", 6.5, 35.6, 139.7, true)));
+        broadcaster.heartbeat();
+
+        assertEquals(0, broadcaster.subscriberCount());
+        broadcaster.register(new RecordingEmitter(), ALL);
+        assertThrows(IllegalStateException.class, () -> broadcaster.register(new RecordingEmitter(), ALL));
+    }
+
+    /**
+     * Emitter that records the text of each event instead of writing to a response
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            sent.add(builder.build().stream()
+                    .map(data -> data.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.earthquake_processor_api.app.util;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.Reader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * A DataSource whose connection reports PostgreSQL and records what is sent through COPY FROM
+ * STDIN, with a parser for the rows following PostgreSQL's CSV rules, so COPY writers can be
+ * tested without a database.
+ */
+public class PgCopyStub {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final CopyManager copyManager = mock(CopyManager.class);
+    private final List<String> statements = new ArrayList<>();
+    private final List<String> inputs = new ArrayList<>();
+
+    public PgCopyStub() throws Exception {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenAnswer(invocation -> {
+            StringWriter input = new StringWriter();
+            ((Reader) invocation.getArgument(1)).transferTo(input);
+            statements.add(invocation.getArgument(0));
+            inputs.add(input.toString());
+            return (long) parse(input.toString()).size();
+        });
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public CopyManager copyManager() {
+        return copyManager;
+    }
+
+    public List<String> statements() {
+        return statements;
+    }
+
+    public List<String> inputs() {
+        return inputs;
+    }
+
+    /**
+     * Split COPY ... (FORMAT csv) input into rows of fields the way PostgreSQL reads it: an unquoted
+     * empty field is NULL, a quoted field may hold commas, quotes doubled as "" and line breaks,
+     * and backslashes have no special meaning
+     * @param csv COPY input
+     * @return rows of field values, null for NULL
+     */
+    public static List<List<String>> parse(String csv) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (inQuotes) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    inQuotes = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',' || c == '\n') {
+                row.add(quoted || field.length() > 0 ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+                if (c == '\n') {
+                    rows.add(row);
+                    row = new ArrayList<>();
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        if (inQuotes || field.length() > 0 || !row.isEmpty()) {
+            throw new IllegalArgumentException("COPY input does not end with a complete row");
+        }
+        return rows;
+    }
+}
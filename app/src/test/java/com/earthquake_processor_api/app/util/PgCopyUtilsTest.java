@@ -0,0 +1,21 @@
+package com.earthquake_processor_api.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgCopyUtilsTest {
+
+    @Test
+    void testAppendRow_quotesTextAndLeavesNullsEmpty() {
+        StringBuilder csv = new StringBuilder();
+
+        PgCopyUtils.appendRow(csv, null, "16 km S of Volcano, Hawaii", "", 4.5, true, null);
+        PgCopyUtils.appendRow(csv, "say \"hi\"", LocalDateTime.of(2025, 1, 2, 3, 4, 5), 7);
+
+        assertEquals(",\"16 km S of Volcano, Hawaii\",\"\",4.5,true,\n"
+                + "\"say \"\"hi\"\"\",\"2025-01-02T03:04:05\",7\n", csv.toString());
+    }
+}